@@ -0,0 +1,98 @@
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Ce programme compare le temps de tri d'une liste de cours selon l'ordre alphabétique français, avec des
+ * comparaisons Collator.compare naïves et avec les clés de collation précalculées de la classe CourseSorter.
+ * <p>
+ * Usage : CourseSortBenchmark [nombre de cours (100000 par défaut)] [répétitions (5 par défaut)]
+ */
+public class CourseSortBenchmark {
+
+    private final static String[] WORDS = {
+            "Économie", "Éthique", "économétrie", "Écologie", "Élasticité", "Introduction", "à", "la",
+            "programmation", "Programmation", "Analyse", "numérique", "Algèbre", "linéaire", "Mécanique", "quantique",
+            "Théorie", "des", "graphes", "Génie", "logiciel", "Probabilités", "Statistique", "Histoire", "médiévale",
+            "Œuvres", "françaises", "Français", "écrit", "Ève", "Crédit", "Côte", "côté", "Coté", "cote", "Bases",
+            "données", "Réseaux", "Systèmes", "d'exploitation", "Sécurité", "Cryptographie", "Apprentissage"};
+
+    private final static String[] PREFIXES = {"IFT", "MAT", "ECN", "PHI", "HST", "FRA", "STT", "PHY"};
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        List<Course> courses = generate(size, new Random(42));
+        List<CourseSorter.SortKey> order = Arrays.asList(
+                new CourseSorter.SortKey(CourseSorter.Column.NAME, true),
+                new CourseSorter.SortKey(CourseSorter.Column.CODE, true));
+
+        Collator collator = Collator.getInstance(Locale.CANADA_FRENCH);
+        Comparator<Course> naive = Comparator.comparing(Course::getName, collator::compare)
+                .thenComparing(Course::getCode, collator::compare);
+
+        // Both approaches must produce the same order
+        List<Course> expected = new ArrayList<>(courses);
+        expected.sort(naive);
+        if (!expected.equals(new CourseSorter(courses).sort(order)))
+            throw new AssertionError("Les deux tris ne produisent pas le même ordre");
+
+        long[] naiveTimes = new long[repetitions];
+        long[] firstSortTimes = new long[repetitions];
+        long[] resortTimes = new long[repetitions];
+
+        for (int warmup = 0; warmup < 3; warmup++) {
+            new ArrayList<>(courses).sort(naive);
+            new CourseSorter(courses).sort(order);
+        }
+
+        for (int i = 0; i < repetitions; i++) {
+            List<Course> copy = new ArrayList<>(courses);
+            long start = System.nanoTime();
+            copy.sort(naive);
+            naiveTimes[i] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            CourseSorter sorter = new CourseSorter(courses);
+            sorter.sort(order);
+            firstSortTimes[i] = System.nanoTime() - start;
+
+            // A later sort on the same list (e.g. the user toggles the column) reuses the keys
+            start = System.nanoTime();
+            sorter.sort(order);
+            resortTimes[i] = System.nanoTime() - start;
+        }
+
+        System.out.printf("Tri de %d cours (nom, puis sigle), médiane de %d répétitions%n", size, repetitions);
+        System.out.printf("  Collator.compare naïf              : %8.1f ms%n", median(naiveTimes));
+        System.out.printf("  CourseSorter (clés + tri)          : %8.1f ms%n", median(firstSortTimes));
+        System.out.printf("  CourseSorter (clés déjà calculées) : %8.1f ms%n", median(resortTimes));
+    }
+
+    private static List<Course> generate(int size, Random random) {
+        List<Course> courses = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            StringBuilder name = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+            int words = 1 + random.nextInt(4);
+            for (int w = 0; w < words; w++)
+                name.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+            String code = PREFIXES[random.nextInt(PREFIXES.length)] + (1000 + random.nextInt(9000));
+            courses.add(new Course(name.toString(), code, "Automne"));
+        }
+        // The server sends the list sorted by code
+        courses.sort(Comparator.comparing(Course::getCode));
+        return Collections.unmodifiableList(courses);
+    }
+
+    private static double median(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2] / 1e6;
+    }
+}
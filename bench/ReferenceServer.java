@@ -0,0 +1,580 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ce programme est un serveur de référence local qui parle le même protocole que le programme serveur des cours :
+ * "CHARGER &lt;session&gt;" retourne la liste des cours de la session triée par sigle, et "INSCRIRE" suivi d'un
+ * RegistrationForm retourne un message de confirmation. Il sert de cible rapide et reproductible aux tests de
+ * charge, aux mesures de performance et aux tests d'intégration du client.
+ * <p>
+ * Le catalogue est indexé en mémoire par session et par sigle. La réponse à CHARGER de chaque session est sérialisée
+ * une seule fois, puis transmise telle quelle à chaque requête. Chaque connexion est traitée par son propre fil
+ * virtuel, ce qui demande Java 21 ou plus ; sur une JVM plus ancienne (dont le JDK 20 du projet), le serveur utilise
+ * une réserve extensible de fils et l'indique au démarrage. Une latence et un taux d'échec peuvent être injectés pour
+ * reproduire un serveur lent ou instable.
+ * <p>
+ * Usage : ReferenceServer [--port &lt;port&gt; (1337 par défaut)] [--unix &lt;chemin&gt;]
+ * [--catalog &lt;cours.txt&gt;] [--sessions Automne,Hiver,Ete] [--courses &lt;cours par session&gt; (1000 par
+ * défaut, 1000000 au plus)] [--seed &lt;graine&gt;] [--latency &lt;ms&gt;] [--jitter &lt;ms&gt;]
+ * [--failure-rate &lt;probabilité entre 0 et 1&gt;].
+ */
+public class ReferenceServer implements AutoCloseable {
+
+    /**
+     * Le nombre maximal de cours d'un catalogue synthétique, par session.
+     */
+    public final static int MAX_SYNTHETIC_COURSES = 1_000_000;
+
+    /**
+     * Les sessions d'un catalogue synthétique par défaut.
+     */
+    public final static String[] DEFAULT_SESSIONS = {"Automne", "Hiver", "Ete"};
+
+    private final Catalog catalog;
+    private final List<ServerSocketChannel> servers = new ArrayList<>();
+    private final ExecutorService connections;
+
+    /**
+     * La latence injectée avant chaque réponse, et sa variation aléatoire maximale, en millisecondes.
+     */
+    private volatile long latencyMillis;
+    private volatile long jitterMillis;
+
+    /**
+     * La probabilité qu'une requête échoue : la connexion est alors fermée sans réponse.
+     */
+    private volatile double failureRate;
+
+    /**
+     * Les inscriptions reçues, par session puis par sigle.
+     */
+    private final Map<String, Map<String, List<RegistrationForm>>> registrations = new ConcurrentHashMap<>();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * Le constructeur de la classe ReferenceServer. Le serveur n'accepte des connexions qu'après listen().
+     *
+     * @param catalog correspond au catalogue des cours offerts.
+     */
+    public ReferenceServer(Catalog catalog) {
+        this.catalog = catalog;
+        this.connections = newConnectionExecutor();
+    }
+
+    /**
+     * Cette méthode crée l'exécuteur des connexions : un fil virtuel par connexion si la JVM les offre (Java 21 et
+     * plus), sinon une réserve extensible de fils démons. Sous Java 19 et 20, les fils virtuels sont une fonction en
+     * préversion, refusée sans l'option --enable-preview : la réserve est alors utilisée.
+     */
+    private static ExecutorService newConnectionExecutor() {
+        try {
+            // Looked up reflectively so that the server still builds on a JDK older than 21
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "reference-server-connection");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Cette méthode décrit le modèle d'exécution des connexions effectivement utilisé.
+     *
+     * @return "un fil virtuel par connexion" ou "réserve de fils", selon la JVM.
+     */
+    public String getConnectionModel() {
+        return connections instanceof ThreadPoolExecutor ? "réserve de fils (Java 21 requis pour les fils virtuels)"
+                : "un fil virtuel par connexion";
+    }
+
+    /**
+     * Cette méthode configure la latence injectée avant chaque réponse.
+     *
+     * @param latencyMillis correspond à la latence fixe, en millisecondes.
+     * @param jitterMillis correspond à la variation aléatoire maximale ajoutée à la latence, en millisecondes.
+     * @return ce serveur.
+     */
+    public ReferenceServer setLatency(long latencyMillis, long jitterMillis) {
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        return this;
+    }
+
+    /**
+     * Cette méthode configure la probabilité d'échec des requêtes.
+     *
+     * @param failureRate correspond à la probabilité, entre 0 et 1, qu'une connexion soit fermée sans réponse.
+     * @return ce serveur.
+     */
+    public ReferenceServer setFailureRate(double failureRate) {
+        if (failureRate < 0 || failureRate > 1)
+            throw new IllegalArgumentException("Taux d'échec invalide (entre 0 et 1 attendu): " + failureRate);
+        this.failureRate = failureRate;
+        return this;
+    }
+
+    /**
+     * Cette méthode accepte les connexions TCP sur un port de la boucle locale.
+     *
+     * @param port correspond au port, ou 0 pour un port libre choisi par le système.
+     * @return le point d'accès du serveur, à utiliser par le client.
+     * @throws IOException si le port ne peut pas être ouvert.
+     */
+    public Endpoint listen(int port) throws IOException {
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress("localhost", port));
+        accept(server);
+        return new Endpoint("localhost", ((InetSocketAddress) server.getLocalAddress()).getPort());
+    }
+
+    /**
+     * Cette méthode accepte les connexions par un socket de domaine Unix. Un fichier de socket existant est remplacé.
+     *
+     * @param socketPath correspond au chemin du socket.
+     * @return le point d'accès du serveur, à utiliser par le client.
+     * @throws IOException si le socket ne peut pas être créé.
+     */
+    public Endpoint listen(Path socketPath) throws IOException {
+        Files.deleteIfExists(socketPath);
+        ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socketPath));
+        accept(server);
+        return new Endpoint(socketPath);
+    }
+
+    /**
+     * Cette méthode démarre le fil qui accepte les connexions d'un socket serveur.
+     */
+    private synchronized void accept(ServerSocketChannel server) {
+        servers.add(server);
+        Thread acceptor = new Thread(() -> {
+            while (server.isOpen()) {
+                try {
+                    SocketChannel channel = server.accept();
+                    connections.execute(() -> handle(channel));
+                } catch (IOException e) {
+                    // The server socket was closed
+                    return;
+                }
+            }
+        }, "reference-server-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Cette méthode traite une connexion : une seule requête, comme le programme serveur.
+     * <p>
+     * L'en-tête du flux d'objets est transmis dès la connexion, puisqu'un client peut l'attendre avant d'écrire sa
+     * requête. Une connexion fermée sans requête (par exemple, la sonde du répartiteur du client) est ignorée.
+     */
+    private void handle(SocketChannel channel) {
+        try (channel) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel));
+            ObjectOutputStream objects = new ObjectOutputStream(out);
+            objects.flush();
+
+            ObjectInputStream in;
+            String command;
+            try {
+                in = new ObjectInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+                command = (String) in.readObject();
+            } catch (IOException e) {
+                return;
+            }
+            requests.incrementAndGet();
+
+            injectLatency();
+            if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+                failures.incrementAndGet();
+                return;
+            }
+
+            if (command.startsWith("CHARGER")) {
+                // Nothing was written to the object stream yet, so the pre-serialized list can follow its header
+                out.write(catalog.serializedCourses(argument(command)));
+            } else if (command.startsWith("INSCRIRE")) {
+                objects.writeObject(register((RegistrationForm) in.readObject()));
+            } else {
+                return;
+            }
+            objects.flush();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            // The connection is dropped, as the course server does on a malformed request
+        }
+    }
+
+    /**
+     * Cette méthode retourne l'argument d'une commande ("CHARGER Automne" donne "Automne").
+     */
+    private static String argument(String command) {
+        int separator = command.indexOf(' ');
+        return separator < 0 ? "" : command.substring(separator + 1).trim();
+    }
+
+    private void injectLatency() {
+        long delay = latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+        if (delay <= 0)
+            return;
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Cette méthode inscrit un étudiant à un cours, si le cours est offert à la session indiquée.
+     *
+     * @param form correspond au formulaire d'inscription.
+     * @return le message de confirmation ou d'échec transmis au client.
+     */
+    String register(RegistrationForm form) {
+        Course requested = form.getCourse();
+        Course course = requested == null ? null : catalog.find(requested.getSession(), requested.getCode());
+        if (course == null) {
+            return "Échec de l'inscription: le cours " + (requested == null ? "" : requested.getCode())
+                    + " n'est pas offert à la session " + (requested == null ? "" : requested.getSession()) + ".";
+        }
+
+        registrations.computeIfAbsent(course.getSession(), s -> new ConcurrentHashMap<>())
+                .computeIfAbsent(course.getCode(), c -> Collections.synchronizedList(new ArrayList<>()))
+                .add(form);
+        return "Félicitations! Inscription réussie de " + form.getPrenom() + " au cours " + course.getCode() + ".";
+    }
+
+    /**
+     * L'accesseur pour les inscriptions reçues à un cours.
+     *
+     * @param session correspond à la session du cours.
+     * @param code correspond au sigle du cours.
+     * @return une copie des formulaires d'inscription reçus.
+     */
+    public List<RegistrationForm> getRegistrations(String session, String code) {
+        List<RegistrationForm> forms = registrations.getOrDefault(session, Map.of()).get(code);
+        if (forms == null)
+            return List.of();
+        synchronized (forms) {
+            return new ArrayList<>(forms);
+        }
+    }
+
+    /**
+     * L'accesseur pour le nombre de requêtes reçues (les connexions fermées sans requête ne sont pas comptées).
+     * @return le nombre de requêtes reçues.
+     */
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * L'accesseur pour le nombre d'échecs injectés.
+     * @return le nombre de requêtes fermées sans réponse.
+     */
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    public Catalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Cette méthode cesse d'accepter des connexions. Les requêtes en cours sont terminées normalement.
+     */
+    @Override
+    public synchronized void close() {
+        for (ServerSocketChannel server : servers) {
+            try {
+                Object address = server.getLocalAddress();
+                server.close();
+                if (address instanceof UnixDomainSocketAddress)
+                    Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+            } catch (IOException e) {
+                // Nothing else can be done
+            }
+        }
+        servers.clear();
+        connections.shutdown();
+    }
+
+    /**
+     * Cette classe est le catalogue en mémoire du serveur : les cours de chaque session, triés par sigle et indexés
+     * par sigle, avec la réponse à CHARGER de chaque session sérialisée à la première demande.
+     */
+    public static class Catalog {
+
+        /**
+         * Les cours de chaque session, triés par sigle.
+         */
+        private final Map<String, List<Course>> coursesBySession;
+
+        /**
+         * Les cours de chaque session, par sigle.
+         */
+        private final Map<String, Map<String, Course>> index = new HashMap<>();
+
+        /**
+         * La clé de la réponse à CHARGER partagée par les sessions absentes du catalogue (une session ne peut pas
+         * être vide : la commande "CHARGER " en retire les espaces).
+         */
+        private final static String UNKNOWN_SESSION = "";
+
+        /**
+         * Les réponses à CHARGER déjà sérialisées, par session du catalogue (sans l'en-tête du flux d'objets).
+         */
+        private final Map<String, byte[]> serialized = new ConcurrentHashMap<>();
+
+        /**
+         * Le constructeur de la classe Catalog.
+         *
+         * @param courses correspond aux cours offerts, toutes sessions confondues.
+         */
+        public Catalog(List<Course> courses) {
+            Map<String, List<Course>> bySession = new LinkedHashMap<>();
+            for (Course course : courses)
+                bySession.computeIfAbsent(course.getSession(), s -> new ArrayList<>()).add(course);
+
+            for (Map.Entry<String, List<Course>> session : bySession.entrySet()) {
+                List<Course> sorted = session.getValue();
+                sorted.sort(Comparator.comparing(Course::getCode));
+                Map<String, Course> byCode = new HashMap<>(sorted.size() * 2);
+                for (Course course : sorted)
+                    byCode.put(course.getCode(), course);
+                session.setValue(Collections.unmodifiableList(sorted));
+                index.put(session.getKey(), byCode);
+            }
+            this.coursesBySession = Collections.unmodifiableMap(bySession);
+        }
+
+        /**
+         * Cette méthode lit un catalogue au format du programme serveur : une ligne par cours, "sigle nom session"
+         * séparés par des tabulations ou des espaces.
+         *
+         * @param file correspond au fichier du catalogue (par exemple, cours.txt).
+         * @return le catalogue.
+         * @throws IOException si le fichier ne peut pas être lu ou qu'une ligne est invalide.
+         */
+        public static Catalog read(Path file) throws IOException {
+            List<Course> courses = new ArrayList<>();
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank())
+                        continue;
+                    String[] fields = line.trim().split("\\s+");
+                    if (fields.length < 3)
+                        throw new IOException("Ligne de catalogue invalide: " + line);
+                    String name = String.join(" ", List.of(fields).subList(1, fields.length - 1));
+                    courses.add(new Course(name, fields[0], fields[fields.length - 1]));
+                }
+            }
+            return new Catalog(courses);
+        }
+
+        /**
+         * Cette méthode crée un catalogue synthétique reproductible, avec le même nombre de cours pour chaque session.
+         *
+         * @param sessions correspond aux sessions offertes.
+         * @param coursesPerSession correspond au nombre de cours par session, au plus MAX_SYNTHETIC_COURSES.
+         * @param seed correspond à la graine du générateur de noms de cours.
+         * @return le catalogue.
+         */
+        public static Catalog synthetic(String[] sessions, int coursesPerSession, long seed) {
+            Map<String, Integer> sizes = new LinkedHashMap<>();
+            for (String session : sessions)
+                sizes.put(session, coursesPerSession);
+            return synthetic(sizes, seed);
+        }
+
+        /**
+         * Cette méthode crée un catalogue synthétique reproductible, avec un nombre de cours donné pour chaque session.
+         * Les sigles ont la forme des sigles de l'université (trois lettres et quatre chiffres) et les noms
+         * contiennent des lettres accentuées.
+         *
+         * @param coursesPerSession correspond au nombre de cours de chaque session, au plus MAX_SYNTHETIC_COURSES.
+         * @param seed correspond à la graine du générateur de noms de cours.
+         * @return le catalogue.
+         */
+        public static Catalog synthetic(Map<String, Integer> coursesPerSession, long seed) {
+            String[] subjects = {"Programmation", "Algèbre", "Analyse", "Économie", "Génétique", "Éthique",
+                    "Mécanique", "Probabilités", "Systèmes", "Réseaux", "Théorie", "Électricité", "Médecine",
+                    "Littérature", "Géographie", "Chimie"};
+            String[] qualifiers = {"avancée", "appliquée", "générale", "numérique", "expérimentale", "théorique",
+                    "française", "québécoise", "moderne", "élémentaire"};
+            String[] prefixes = prefixes(MAX_SYNTHETIC_COURSES / 10_000);
+
+            List<Course> courses = new ArrayList<>();
+            for (Map.Entry<String, Integer> session : coursesPerSession.entrySet()) {
+                int count = session.getValue();
+                if (count < 0 || count > MAX_SYNTHETIC_COURSES)
+                    throw new IllegalArgumentException("Nombre de cours invalide (au plus " + MAX_SYNTHETIC_COURSES
+                            + "): " + count);
+
+                Random random = new Random(seed ^ session.getKey().hashCode());
+                for (int i = 0; i < count; i++) {
+                    String code = prefixes[i % prefixes.length] + String.format("%04d", i / prefixes.length);
+                    String name = subjects[random.nextInt(subjects.length)] + " "
+                            + qualifiers[random.nextInt(qualifiers.length)] + " " + (1 + random.nextInt(9));
+                    courses.add(new Course(name, code, session.getKey()));
+                }
+            }
+            return new Catalog(courses);
+        }
+
+        /**
+         * Cette méthode crée des préfixes de sigle distincts de trois lettres, en commençant par ceux de l'université.
+         */
+        private static String[] prefixes(int count) {
+            String[] known = {"IFT", "MAT", "PHY", "CHM", "BIO", "ECN", "PSY", "HST", "LNG", "STT"};
+            List<String> prefixes = new ArrayList<>(List.of(known));
+            for (char a = 'A'; a <= 'Z' && prefixes.size() < count; a++) {
+                for (char b = 'A'; b <= 'Z' && prefixes.size() < count; b += 5) {
+                    String prefix = "" + a + b + 'X';
+                    if (!prefixes.contains(prefix))
+                        prefixes.add(prefix);
+                }
+            }
+            return prefixes.subList(0, count).toArray(new String[0]);
+        }
+
+        /**
+         * L'accesseur pour les sessions du catalogue.
+         * @return les sessions, dans l'ordre du catalogue.
+         */
+        public List<String> getSessions() {
+            return new ArrayList<>(coursesBySession.keySet());
+        }
+
+        /**
+         * L'accesseur pour les cours d'une session.
+         *
+         * @param session correspond à la session.
+         * @return la liste non modifiable des cours de la session, triée par sigle (vide si la session n'existe pas).
+         */
+        public List<Course> getCourses(String session) {
+            return coursesBySession.getOrDefault(session, List.of());
+        }
+
+        /**
+         * Cette méthode cherche un cours dans l'index.
+         *
+         * @param session correspond à la session.
+         * @param code correspond au sigle.
+         * @return le cours, ou null s'il n'est pas offert à cette session.
+         */
+        public Course find(String session, String code) {
+            Map<String, Course> byCode = index.get(session);
+            return byCode == null ? null : byCode.get(code);
+        }
+
+        /**
+         * Cette méthode retourne la réponse à CHARGER d'une session, sérialisée à la première demande. Les octets
+         * prolongent un flux d'objets dont l'en-tête a déjà été transmis. Seules les sessions du catalogue sont
+         * conservées : une session inconnue reçoit la liste vide, partagée, afin que des requêtes pour des sessions
+         * quelconques ne fassent pas croître la mémoire du serveur.
+         *
+         * @param session correspond à la session.
+         * @return la liste des cours de la session, sérialisée.
+         */
+        byte[] serializedCourses(String session) {
+            if (!coursesBySession.containsKey(session))
+                return serialized.computeIfAbsent(UNKNOWN_SESSION, s -> serialize(List.of()));
+            return serialized.computeIfAbsent(session, s -> serialize(getCourses(s)));
+        }
+
+        /**
+         * Cette méthode sérialise une liste de cours et retire l'en-tête du flux d'objets.
+         *
+         * @param courses correspond à la liste de cours.
+         * @return la liste sérialisée, sans l'en-tête du flux d'objets.
+         */
+        private static byte[] serialize(List<Course> courses) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                // An ArrayList, like the course server sends, rather than the catalog's unmodifiable view
+                out.writeObject(new ArrayList<>(courses));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            byte[] stream = bytes.toByteArray();
+            return Arrays.copyOfRange(stream, 4, stream.length);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                System.err.println("Usage: ReferenceServer [--port <port>] [--unix <chemin>] [--catalog <cours.txt>]"
+                        + " [--sessions <s1,s2>] [--courses <n>] [--seed <graine>] [--latency <ms>] [--jitter <ms>]"
+                        + " [--failure-rate <p>]");
+                System.exit(2);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+
+        Catalog catalog = options.containsKey("catalog")
+                ? Catalog.read(Paths.get(options.get("catalog")))
+                : Catalog.synthetic(options.getOrDefault("sessions", String.join(",", DEFAULT_SESSIONS)).split(","),
+                Integer.parseInt(options.getOrDefault("courses", "1000")),
+                Long.parseLong(options.getOrDefault("seed", "1")));
+
+        ReferenceServer server = new ReferenceServer(catalog)
+                .setLatency(Long.parseLong(options.getOrDefault("latency", "0")),
+                        Long.parseLong(options.getOrDefault("jitter", "0")))
+                .setFailureRate(Double.parseDouble(options.getOrDefault("failure-rate", "0")));
+
+        // Serialize every session before accepting connections, so that the first requests are not slower
+        for (String session : catalog.getSessions())
+            catalog.serializedCourses(session);
+
+        List<Endpoint> endpoints = new ArrayList<>();
+        endpoints.add(server.listen(Integer.parseInt(options.getOrDefault("port", "1337"))));
+        if (options.containsKey("unix"))
+            endpoints.add(server.listen(Paths.get(options.get("unix"))));
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close, "reference-server-close"));
+
+        for (String session : catalog.getSessions())
+            System.out.println(session + ": " + catalog.getCourses(session).size() + " cours");
+        System.out.println("Connexions traitées par: " + server.getConnectionModel() + ".");
+        System.out.println("Le serveur de référence écoute sur " + endpoints + ".");
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,177 @@
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ce programme rejoue un enregistrement d'échanges (TrafficRecorder) contre un serveur, en respectant les
+ * intervalles d'arrivée d'origine, à la vitesse réelle ou accélérée, puis affiche la distribution des latences.
+ * <p>
+ * La charge est en boucle ouverte : chaque requête est lancée à son moment prévu, que les requêtes précédentes soient
+ * terminées ou non. Le temps de réponse est mesuré à partir du moment prévu, afin d'inclure l'attente causée par un
+ * serveur saturé (et non seulement le temps de service).
+ * <p>
+ * Usage : TrafficReplayer &lt;enregistrement&gt; &lt;points d'accès&gt; [vitesse (1 par défaut)] [requêtes simultanées
+ * max (64 par défaut)]. Les points d'accès du serveur visé ("hôte:port" ou "unix:chemin", séparés par des virgules),
+ * par exemple ceux d'un serveur de référence local (ReferenceServer), doivent être donnés explicitement : le rejeu
+ * transmet des inscriptions fictives, qui ne doivent jamais atteindre le serveur configuré par défaut.
+ */
+public class TrafficReplayer {
+
+    private final EndpointBalancer balancer;
+    private final double speed;
+    private final ExecutorService workers;
+
+    private final Map<String, List<Long>> responseTimes = new ConcurrentHashMap<>();
+    private final Map<String, List<Long>> recordedLatencies = new ConcurrentHashMap<>();
+    private final Map<String, List<Course>> coursesBySession = new ConcurrentHashMap<>();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    public TrafficReplayer(EndpointBalancer balancer, double speed, int concurrency) {
+        this.balancer = balancer;
+        this.speed = speed;
+        this.workers = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread thread = new Thread(r, "replay-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Cette méthode rejoue tous les échanges d'un enregistrement et attend la fin des requêtes.
+     */
+    public void replay(TrafficRecorder.Reader reader) throws IOException, InterruptedException {
+        TrafficRecorder.Exchange exchange = reader.next();
+        if (exchange == null)
+            return;
+
+        // Warm up the client code path (and the course list used by INSCRIRE) before the clock starts
+        coursesFor(exchange.session);
+
+        long replayStart = System.nanoTime();
+        long firstOffset = exchange.offsetNanos;
+
+        for (; exchange != null; exchange = reader.next()) {
+            long due = replayStart + (long) ((exchange.offsetNanos - firstOffset) / speed);
+            long wait = due - System.nanoTime();
+            if (wait > 0)
+                TimeUnit.NANOSECONDS.sleep(wait);
+
+            TrafficRecorder.Exchange scheduled = exchange;
+            workers.execute(() -> execute(scheduled, due));
+        }
+
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.HOURS);
+    }
+
+    /**
+     * Cette méthode transmet au serveur la requête correspondant à un échange enregistré.
+     */
+    private void execute(TrafficRecorder.Exchange exchange, long dueNanos) {
+        String command = exchange.command == TrafficRecorder.COMMAND_INSCRIRE ? "INSCRIRE" : "CHARGER";
+        Client client = new Client(balancer, null);
+        try {
+            if (exchange.command == TrafficRecorder.COMMAND_INSCRIRE)
+                client.inscrire(registrationForm(exchange.session));
+            else
+                client.charger(exchange.session);
+
+            add(responseTimes, command, System.nanoTime() - dueNanos);
+            add(recordedLatencies, command, exchange.latencyNanos);
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+        }
+    }
+
+    /**
+     * Cette méthode crée un formulaire d'inscription valide et unique pour un cours offert à la session, puisque
+     * l'enregistrement ne conserve pas les données personnelles des étudiants.
+     */
+    private RegistrationForm registrationForm(String session) {
+        List<Course> courses = coursesFor(session);
+
+        int n = sequence.incrementAndGet();
+        Course course = courses.isEmpty() ? new Course("Cours", "IFT1015", session) : courses.get(n % courses.size());
+        return new RegistrationForm("Etudiant", "Rejeu", "rejeu" + n + "@umontreal.ca",
+                String.format("%08d", n % 100_000_000), course);
+    }
+
+    private List<Course> coursesFor(String session) {
+        return coursesBySession.computeIfAbsent(session, s -> {
+            Client client = new Client(balancer, null);
+            client.charger(s);
+            return client.getFilteredSortedList();
+        });
+    }
+
+    private static void add(Map<String, List<Long>> map, String key, long nanos) {
+        map.computeIfAbsent(key, k -> Collections.synchronizedList(new ArrayList<>())).add(nanos);
+    }
+
+    public void printReport(PrintStream out) {
+        out.printf("%-9s %-24s %7s %10s %10s %10s %10s%n", "commande", "mesure", "n", "p50 (ms)", "p90 (ms)",
+                "p99 (ms)", "max (ms)");
+        for (String command : new String[]{"CHARGER", "INSCRIRE"}) {
+            printLine(out, command, "rejeu (temps de réponse)", responseTimes.get(command));
+            printLine(out, command, "enregistrement (latence)", recordedLatencies.get(command));
+        }
+        out.println("Échecs: " + failures.get());
+    }
+
+    private static void printLine(PrintStream out, String command, String label, List<Long> values) {
+        if (values == null || values.isEmpty())
+            return;
+        long[] sorted;
+        synchronized (values) {
+            sorted = values.stream().mapToLong(Long::longValue).toArray();
+        }
+        Arrays.sort(sorted);
+        out.printf("%-9s %-24s %7d %10.3f %10.3f %10.3f %10.3f%n", command, label, sorted.length,
+                percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99),
+                sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))] / 1e6;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: TrafficReplayer <enregistrement> <points d'accès> [vitesse] "
+                    + "[requêtes simultanées max]");
+            System.exit(2);
+        }
+        EndpointBalancer balancer = EndpointBalancer.parse(args[1]);
+        double speed = args.length > 2 ? Double.parseDouble(args[2]) : 1;
+        int concurrency = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+
+        // Keep the client's connection messages out of the report
+        PrintStream stdout = System.out;
+        System.setOut(System.err);
+        TrafficReplayer replayer = new TrafficReplayer(balancer, speed, concurrency);
+
+        long start = System.nanoTime();
+        try (TrafficRecorder.Reader reader = new TrafficRecorder.Reader(
+                new BufferedInputStream(Files.newInputStream(Paths.get(args[0]))))) {
+            replayer.replay(reader);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        stdout.printf("Rejeu à %.1fx contre %s terminé en %.1f s%n", speed, balancer.getEndpoints(), elapsed / 1e9);
+        replayer.printReport(stdout);
+    }
+}
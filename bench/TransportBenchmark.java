@@ -0,0 +1,102 @@
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Ce programme compare les couches de transport du client sur une boucle locale : le flux bloquant d'origine (sans
+ * tampon ni option), le flux bloquant tamponné avec TCP_NODELAY, et le SocketChannel avec tampons directs.
+ * <p>
+ * Pour chaque transport, il mesure la latence des requêtes CHARGER (petite et grande liste de cours) et INSCRIRE,
+ * ainsi que le nombre moyen d'écritures et de lectures sur le socket par requête. Le serveur de référence est
+ * démarré dans le programme et répond sans latence injectée, afin que les différences mesurées viennent du client.
+ * <p>
+ * Usage : TransportBenchmark [requêtes par mesure (2000 par défaut)].
+ */
+public class TransportBenchmark {
+
+    private final static int CONNECT_TIMEOUT_MILLIS = 2000;
+
+    private final Endpoint endpoint;
+
+    public TransportBenchmark(Endpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Cette méthode transmet une requête par un transport, selon le même protocole que le client, et retourne
+     * ses mesures : latence en nanosecondes, écritures et lectures.
+     */
+    private long[] request(Transport transport, String command, RegistrationForm form, boolean flushCommand)
+            throws IOException, ClassNotFoundException {
+        long start = System.nanoTime();
+        try (Connection connection = transport.open(endpoint, CONNECT_TIMEOUT_MILLIS)) {
+            ObjectOutputStream out = new ObjectOutputStream(connection.getOutputStream());
+            out.writeObject(command);
+            if (form != null) {
+                if (flushCommand)
+                    out.flush();
+                out.writeObject(form);
+            }
+            out.flush();
+            connection.awaitResponse();
+            new ObjectInputStream(connection.getInputStream()).readObject();
+            return new long[]{System.nanoTime() - start, connection.getWriteCalls(), connection.getReadCalls()};
+        }
+    }
+
+    /**
+     * Cette méthode mesure une série de requêtes et affiche une ligne de résultats.
+     */
+    private void measure(String label, Transport transport, String command, RegistrationForm form,
+                         boolean flushCommand, int requests) throws Exception {
+        for (int i = 0; i < Math.max(100, requests / 10); i++)
+            request(transport, command, form, flushCommand);
+
+        long[] latencies = new long[requests];
+        long writes = 0;
+        long reads = 0;
+        for (int i = 0; i < requests; i++) {
+            long[] result = request(transport, command, form, flushCommand);
+            latencies[i] = result[0];
+            writes += result[1];
+            reads += result[2];
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%-22s %-16s %10.3f %10.3f %10.3f %9.1f %9.1f%n", label,
+                form == null ? command : "INSCRIRE", JfrAnalyzer.percentile(latencies, 50),
+                JfrAnalyzer.percentile(latencies, 99), Arrays.stream(latencies).average().orElse(0) / 1e6,
+                (double) writes / requests, (double) reads / requests);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+
+        // 50 courses in the fall, 5000 in the winter
+        ReferenceServer.Catalog catalog = ReferenceServer.Catalog.synthetic(Map.of("Automne", 50, "Hiver", 5000), 1);
+        ReferenceServer server = new ReferenceServer(catalog);
+
+        TransportBenchmark benchmark = new TransportBenchmark(server.listen(0));
+        TransportOptions tuned = new TransportOptions(true, false, 0, 0, 8192);
+        Object[][] transports = {
+                {"origine (sans tampon)", new StreamTransport(TransportOptions.unbuffered()), true},
+                {"stream tamponné", new StreamTransport(tuned), false},
+                {"nio (tampons directs)", new NioTransport(tuned), false},
+        };
+        RegistrationForm form = new RegistrationForm("Jean", "Dupont", "jean@umontreal.ca", "12345678",
+                catalog.getCourses("Automne").get(0));
+
+        System.out.printf("%-22s %-16s %10s %10s %10s %9s %9s%n", "transport", "requête", "p50 (ms)", "p99 (ms)",
+                "moy. (ms)", "écrit./r", "lect./r");
+        for (Object[] transport : transports) {
+            String label = (String) transport[0];
+            Transport t = (Transport) transport[1];
+            boolean flushCommand = (Boolean) transport[2];
+            benchmark.measure(label, t, "CHARGER Automne", null, flushCommand, requests);
+            benchmark.measure(label, t, "CHARGER Hiver", null, flushCommand, requests / 10);
+            benchmark.measure(label, t, "INSCRIRE ", form, flushCommand, requests);
+        }
+        server.close();
+    }
+}
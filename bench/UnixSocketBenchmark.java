@@ -0,0 +1,109 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ce programme compare la requête CHARGER du client par socket de domaine Unix et par TCP sur la boucle locale :
+ * la latence d'aller-retour de requêtes successives, puis le débit de plusieurs clients simultanés.
+ * <p>
+ * Le serveur de référence est démarré dans le programme et traite les deux types de sockets de la même façon. Le
+ * transport du client est celui de la configuration (propriété système "client.transport").
+ * <p>
+ * Usage : UnixSocketBenchmark [requêtes par mesure (2000 par défaut)] [clients simultanés (8 par défaut)]
+ * [durée de la mesure du débit en secondes (3 par défaut)].
+ */
+public class UnixSocketBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        // Keep the client's connection messages out of the report
+        PrintStream stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        // 50 courses in the fall, 5000 in the winter
+        ReferenceServer server = new ReferenceServer(
+                ReferenceServer.Catalog.synthetic(Map.of("Automne", 50, "Hiver", 5000), 1));
+        Path directory = Files.createTempDirectory("client-fx");
+        Endpoint[] endpoints = {
+                server.listen(directory.resolve("serveur.sock")),
+                server.listen(0),
+        };
+        Transport transport = Transport.fromConfiguration();
+
+        // Warm up the client and server code paths on every endpoint first, so that the endpoint measured first
+        // does not pay for the JIT compilation
+        for (Endpoint endpoint : endpoints) {
+            for (String session : new String[]{"Automne", "Hiver"}) {
+                latency(endpoint, transport, session, requests / 10);
+                throughput(endpoint, transport, session, clients, 1);
+            }
+        }
+
+        stdout.printf("%-26s %-16s %10s %10s %10s %12s%n", "point d'accès", "session", "p50 (ms)", "p99 (ms)",
+                "moy. (ms)", "requêtes/s");
+        for (Endpoint endpoint : endpoints) {
+            for (String session : new String[]{"Automne", "Hiver"}) {
+                int n = session.equals("Automne") ? requests : requests / 10;
+                long[] latencies = latency(endpoint, transport, session, n);
+                double throughput = throughput(endpoint, transport, session, clients, seconds);
+                stdout.printf("%-26s %-16s %10.3f %10.3f %10.3f %12.0f%n", endpoint.isUnixDomain() ? "unix" : "tcp",
+                        session + (session.equals("Automne") ? " (50)" : " (5000)"),
+                        JfrAnalyzer.percentile(latencies, 50), JfrAnalyzer.percentile(latencies, 99),
+                        Arrays.stream(latencies).average().orElse(0) / 1e6, throughput);
+            }
+        }
+        server.close();
+        Files.deleteIfExists(directory);
+    }
+
+    /**
+     * Cette méthode mesure la durée de requêtes CHARGER successives.
+     */
+    private static long[] latency(Endpoint endpoint, Transport transport, String session, int requests) {
+        Client client = new Client(new EndpointBalancer(List.of(endpoint)), null, transport);
+        long[] latencies = new long[requests];
+        for (int i = 0; i < requests; i++) {
+            long start = System.nanoTime();
+            client.charger(session);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    /**
+     * Cette méthode mesure le nombre de requêtes CHARGER traitées par seconde avec plusieurs clients simultanés.
+     */
+    private static double throughput(Endpoint endpoint, Transport transport, String session, int clients,
+                                     int seconds) throws InterruptedException {
+        EndpointBalancer balancer = new EndpointBalancer(List.of(endpoint));
+        AtomicLong completed = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        ExecutorService workers = Executors.newFixedThreadPool(clients);
+        long start = System.nanoTime();
+        for (int i = 0; i < clients; i++) {
+            workers.execute(() -> {
+                Client client = new Client(balancer, null, transport);
+                while (System.nanoTime() - deadline < 0) {
+                    client.charger(session);
+                    completed.incrementAndGet();
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+        return completed.get() / ((System.nanoTime() - start) / 1e9);
+    }
+}
@@ -1,5 +1,9 @@
 public class App {
     public static void main(String[] args) {
-        View.main(args);
+        // The command-line mode never touches View, so the JavaFX toolkit is not loaded
+        if (args.length > 0 && Cli.isCommand(args[0]))
+            Cli.main(args);
+        else
+            View.main(args);
     }
 }
@@ -0,0 +1,465 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cette classe implémente l'importation en lot d'inscriptions à partir d'un fichier CSV.
+ * <p>
+ * Chaque ligne du fichier contient le prénom, le nom, l'email, le matricule et le sigle du cours d'un étudiant.
+ * Le fichier est lu par blocs de lignes afin que la mémoire utilisée ne dépende pas de la taille du fichier : pendant
+ * que les inscriptions d'un bloc sont transmises au serveur, le bloc suivant est validé en parallèle (fork-join)
+ * selon les mêmes règles que le formulaire de l'interface graphique. Les inscriptions valides sont transmises au
+ * serveur (via le client) par lots, à un débit limité. Le résultat de chaque ligne est écrit dans un rapport au
+ * format TSV (ligne, statut, message).
+ */
+public class BulkImport {
+
+    /**
+     * Le nombre de lignes lues et validées à la fois.
+     */
+    private final static int CHUNK_SIZE = 4096;
+
+    /**
+     * Le nombre de lignes sous lequel une tâche de validation n'est plus subdivisée.
+     */
+    private final static int SPLIT_THRESHOLD = 256;
+
+    /**
+     * Le nombre de colonnes attendues dans chaque ligne du fichier.
+     */
+    private final static int COLUMNS = 5;
+
+    /**
+     * Le statut d'une ligne dont l'inscription a été acceptée par le serveur.
+     */
+    public final static String STATUS_REGISTERED = "INSCRIT";
+
+    /**
+     * Le statut d'une ligne dont les données ne respectent pas les règles de validation.
+     */
+    public final static String STATUS_INVALID = "INVALIDE";
+
+    /**
+     * Le statut d'une ligne valide dont la transmission au serveur a échoué ou que le serveur a refusée.
+     */
+    public final static String STATUS_FAILED = "ECHEC";
+
+    /**
+     * Le début de la réponse du serveur à une inscription acceptée ; toute autre réponse est un refus.
+     */
+    private final static String REGISTERED_REPLY_PREFIX = "Félicitations!";
+
+    /**
+     * La marque d'ordre des octets (BOM) qui peut précéder la première ligne d'un fichier UTF-8 (par exemple, un
+     * fichier "CSV UTF-8" exporté par Excel).
+     */
+    private final static char BYTE_ORDER_MARK = '\uFEFF';
+
+    /**
+     * L'objet de la classe Client qui transmet les requêtes d'inscription au serveur.
+     */
+    private final Client client;
+
+    /**
+     * La session pour laquelle les inscriptions sont importées.
+     */
+    private final String session;
+
+    /**
+     * Le nombre d'inscriptions transmises par lot.
+     */
+    private final int batchSize;
+
+    /**
+     * Le nombre maximal d'inscriptions transmises par seconde.
+     */
+    private final double ratePerSecond;
+
+    /**
+     * Les cours offerts à la session, indexés par sigle (en majuscules).
+     */
+    private Map<String, Course> coursesByCode;
+
+    /**
+     * Le nombre de lignes par statut, une fois l'importation terminée.
+     */
+    private int registered, invalid, failed;
+
+    /**
+     * Le constructeur de la classe BulkImport.
+     *
+     * @param client correspond au client qui transmet les requêtes au serveur.
+     * @param session correspond à la session pour laquelle les inscriptions sont importées.
+     * @param batchSize correspond au nombre d'inscriptions transmises par lot.
+     * @param ratePerSecond correspond au nombre maximal d'inscriptions transmises par seconde.
+     */
+    public BulkImport(Client client, String session, int batchSize, double ratePerSecond) {
+        if (batchSize < 1 || !(ratePerSecond > 0))
+            throw new IllegalArgumentException("La taille des lots et le débit doivent être positifs.");
+        this.client = client;
+        this.session = session;
+        this.batchSize = batchSize;
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    /**
+     * Cette méthode importe toutes les inscriptions d'un fichier CSV.
+     * <p>
+     * La liste des cours offerts à la session est d'abord demandée au serveur, afin de résoudre le sigle de cours
+     * de chaque ligne. Une première ligne qui commence par "prenom" est considérée comme une ligne d'en-tête.
+     *
+     * @param csv correspond au contenu du fichier CSV.
+     * @param report correspond au rapport dans lequel le résultat de chaque ligne est écrit.
+     * @throws IOException si la lecture du fichier ou l'écriture du rapport échoue.
+     */
+    public void run(Reader csv, Writer report) throws IOException {
+
+        loadCourses();
+
+        BufferedReader reader = new BufferedReader(csv, 1 << 16);
+        report.write("ligne\tstatut\tmessage\n");
+
+        // The next chunk is validated by the fork-join pool while the current one is being submitted
+        long[] lineNumber = {0};
+        ValidationTask current = validate(readChunk(reader, lineNumber));
+        while (current != null) {
+            ValidationTask next = validate(readChunk(reader, lineNumber));
+            current.join();
+            submit(current.rows, report);
+            current = next;
+        }
+        report.flush();
+    }
+
+    /**
+     * L'accesseur pour le nombre de lignes dont l'inscription a été acceptée.
+     * @return le nombre de lignes inscrites.
+     */
+    public int getRegistered() {
+        return registered;
+    }
+
+    /**
+     * L'accesseur pour le nombre de lignes invalides.
+     * @return le nombre de lignes qui ne respectent pas les règles de validation.
+     */
+    public int getInvalid() {
+        return invalid;
+    }
+
+    /**
+     * L'accesseur pour le nombre de lignes dont la transmission a échoué.
+     * @return le nombre de lignes valides qui n'ont pas pu être transmises au serveur.
+     */
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * Cette méthode obtient la liste des cours offerts à la session et l'indexe par sigle.
+     */
+    private void loadCourses() {
+        List<Course> courses;
+        synchronized (client) {
+            client.charger(session);
+            courses = client.getFilteredSortedList();
+        }
+
+        Map<String, Course> index = new HashMap<>();
+        for (Course course : courses)
+            index.put(course.getCode().toUpperCase(Locale.ROOT), course);
+        this.coursesByCode = index;
+    }
+
+    /**
+     * Cette méthode lit le prochain bloc de lignes du fichier.
+     *
+     * @param reader correspond au fichier CSV.
+     * @param lineNumber correspond au numéro de la dernière ligne lue, mis à jour par cette méthode.
+     * @return les lignes lues, ou null si la fin du fichier est atteinte.
+     * @throws IOException si la lecture du fichier échoue.
+     */
+    private Row[] readChunk(BufferedReader reader, long[] lineNumber) throws IOException {
+        List<Row> rows = new ArrayList<>(CHUNK_SIZE);
+        String line;
+        while (rows.size() < CHUNK_SIZE && (line = reader.readLine()) != null) {
+            lineNumber[0]++;
+            if (lineNumber[0] == 1 && !line.isEmpty() && line.charAt(0) == BYTE_ORDER_MARK)
+                line = line.substring(1);
+            if (line.isBlank())
+                continue;
+            if (lineNumber[0] == 1 && line.trim().toLowerCase(Locale.ROOT).startsWith("prenom"))
+                continue;
+            rows.add(new Row(lineNumber[0], line));
+        }
+        return rows.isEmpty() ? null : rows.toArray(new Row[0]);
+    }
+
+    /**
+     * Cette méthode démarre la validation en parallèle d'un bloc de lignes.
+     *
+     * @param rows correspond au bloc de lignes à valider.
+     * @return la tâche de validation, ou null s'il n'y a aucune ligne à valider.
+     */
+    private ValidationTask validate(Row[] rows) {
+        if (rows == null)
+            return null;
+        ValidationTask task = new ValidationTask(rows, 0, rows.length);
+        ForkJoinPool.commonPool().execute(task);
+        return task;
+    }
+
+    /**
+     * Cette méthode valide une ligne du fichier et crée le formulaire d'inscription correspondant.
+     *
+     * @param row correspond à la ligne à valider.
+     */
+    private void validate(Row row) {
+        String[] fields = parseCsvLine(row.line);
+        if (fields.length != COLUMNS) {
+            row.message = COLUMNS + " colonnes sont attendues (prenom, nom, email, matricule, cours), "
+                    + fields.length + " ont été trouvées.";
+            return;
+        }
+
+        List<String> errors = new ArrayList<>();
+
+        try {
+            InputValidator.validatePrenom(fields[0]);
+        } catch (InvalidRegexPatternException e) {
+            errors.add(e.getMessage());
+        }
+
+        try {
+            InputValidator.validateNom(fields[1]);
+        } catch (InvalidRegexPatternException e) {
+            errors.add(e.getMessage());
+        }
+
+        try {
+            InputValidator.validateEmail(fields[2]);
+        } catch (InvalidRegexPatternException e) {
+            errors.add(e.getMessage());
+        }
+
+        try {
+            InputValidator.validateMatricule(fields[3]);
+        } catch (InvalidRegexPatternException e) {
+            errors.add(e.getMessage());
+        }
+
+        Course course = coursesByCode.get(fields[4].toUpperCase(Locale.ROOT));
+        if (course == null)
+            errors.add("Le cours " + fields[4] + " n'est pas offert à la session " + session);
+
+        if (errors.isEmpty())
+            row.form = new RegistrationForm(fields[0], fields[1], fields[2], fields[3], course);
+        else
+            row.message = String.join("; ", errors);
+    }
+
+    /**
+     * Cette méthode transmet au serveur, par lots et à un débit limité, les inscriptions valides d'un bloc de lignes
+     * et écrit le résultat de chaque ligne dans le rapport.
+     *
+     * @param rows correspond au bloc de lignes validées.
+     * @param report correspond au rapport.
+     * @throws IOException si l'écriture du rapport échoue.
+     */
+    private void submit(Row[] rows, Writer report) throws IOException {
+        for (int start = 0; start < rows.length; start += batchSize) {
+            long batchStart = System.nanoTime();
+            int sent = 0;
+
+            for (int i = start; i < Math.min(start + batchSize, rows.length); i++) {
+                Row row = rows[i];
+                if (row.form == null) {
+                    invalid++;
+                    writeResult(report, row.lineNumber, STATUS_INVALID, row.message);
+                    continue;
+                }
+
+                sent++;
+                try {
+                    String confirmation;
+                    synchronized (client) {
+                        client.inscrire(row.form);
+                        confirmation = client.getConfirmMsgFromServer();
+                    }
+                    if (confirmation != null && confirmation.startsWith(REGISTERED_REPLY_PREFIX)) {
+                        registered++;
+                        writeResult(report, row.lineNumber, STATUS_REGISTERED, confirmation);
+                    } else {
+                        failed++;
+                        writeResult(report, row.lineNumber, STATUS_FAILED, confirmation);
+                    }
+                } catch (RuntimeException e) {
+                    failed++;
+                    writeResult(report, row.lineNumber, STATUS_FAILED, String.valueOf(e));
+                }
+            }
+            report.flush();
+
+            // Wait until the batch has taken at least as long as the rate limit allows
+            long minimumNanos = (long) (sent * TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+            long remainingNanos = minimumNanos - (System.nanoTime() - batchStart);
+            if (remainingNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(remainingNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Importation interrompue", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cette méthode écrit le résultat d'une ligne dans le rapport.
+     *
+     * @param report correspond au rapport.
+     * @param lineNumber correspond au numéro de la ligne dans le fichier CSV.
+     * @param status correspond au statut de la ligne.
+     * @param message correspond au message d'erreur ou à la réponse du serveur.
+     * @throws IOException si l'écriture du rapport échoue.
+     */
+    private void writeResult(Writer report, long lineNumber, String status, String message) throws IOException {
+        report.write(Long.toString(lineNumber));
+        report.write('\t');
+        report.write(status);
+        report.write('\t');
+        report.write(message == null ? "" : message.replaceAll("[\\t\\r\\n]+", " "));
+        report.write('\n');
+    }
+
+    /**
+     * Cette méthode découpe une ligne CSV en colonnes. Les colonnes peuvent être entourées de guillemets, auquel cas
+     * elles peuvent contenir des virgules et des guillemets doublés. Les espaces autour des colonnes sont ignorés.
+     *
+     * @param line correspond à la ligne à découper.
+     * @return les colonnes de la ligne.
+     */
+    static String[] parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>(COLUMNS);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * Une ligne du fichier CSV, avec le résultat de sa validation.
+     */
+    private static class Row {
+        final long lineNumber;
+        final String line;
+        RegistrationForm form;
+        String message;
+
+        Row(long lineNumber, String line) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+        }
+    }
+
+    /**
+     * La tâche fork-join qui valide une plage de lignes, en la subdivisant tant qu'elle est assez grande.
+     */
+    private class ValidationTask extends RecursiveAction {
+        private final static long serialVersionUID = 1L;
+
+        private final Row[] rows;
+        private final int from, to;
+
+        ValidationTask(Row[] rows, int from, int to) {
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                for (int i = from; i < to; i++)
+                    validate(rows[i]);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ValidationTask(rows, from, middle), new ValidationTask(rows, middle, to));
+        }
+    }
+
+    /**
+     * Le point d'entrée de l'importation en lot.
+     * <p>
+     * Usage : BulkImport &lt;fichier.csv&gt; &lt;session&gt; [rapport.tsv]. Le rapport est écrit sur la sortie
+     * standard s'il n'est pas précisé. La taille des lots et le débit sont configurés par les propriétés système
+     * "bulk.batchSize" (50 par défaut) et "bulk.ratePerSecond" (20 par défaut).
+     *
+     * @param args correspond aux arguments de la ligne de commande.
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: BulkImport <fichier.csv> <session> [rapport.tsv]");
+            System.exit(2);
+        }
+
+        // Keep the client's connection messages out of the report
+        PrintStream stdout = System.out;
+        System.setOut(System.err);
+
+        int batchSize = Integer.getInteger("bulk.batchSize", 50);
+        double ratePerSecond = Double.parseDouble(System.getProperty("bulk.ratePerSecond", "20"));
+        // No snapshot: an import must not replace the state cached by the graphical client
+        BulkImport bulkImport = new BulkImport(new Client(EndpointBalancer.fromConfiguration(), null), args[1],
+                batchSize, ratePerSecond);
+
+        try (Reader csv = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8);
+             Writer report = args.length > 2
+                     ? Files.newBufferedWriter(Paths.get(args[2]), StandardCharsets.UTF_8)
+                     : new OutputStreamWriter(stdout, StandardCharsets.UTF_8)) {
+            bulkImport.run(csv, report);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("L'importation a échoué: " + e);
+            System.exit(1);
+        }
+
+        System.err.println("Inscrits: " + bulkImport.getRegistered() + ", invalides: " + bulkImport.getInvalid()
+                + ", échecs: " + bulkImport.getFailed());
+    }
+}
@@ -0,0 +1,306 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * Cette classe gère l'instantané local (snapshot) de la liste de cours reçue du serveur pour une session donnée.
+ * <p>
+ * L'instantané est un fichier binaire compact et versionné, lu d'un seul bloc par un FileChannel, qui permet
+ * d'afficher la dernière liste de cours connue dès le démarrage de l'application, avant même que la requête
+ * "CHARGER" n'ait reçu de réponse du serveur. Un instantané corrompu, d'une autre version du format ou trop ancien
+ * est ignoré.
+ * <p>
+ * Les listes reçues du serveur sont sauvegardées par un fil d'arrière-plan unique (saveLater), afin que l'écriture et
+ * la synchronisation du fichier sur le disque ne retardent pas l'interface.
+ * <p>
+ * Format du fichier (gros-boutiste) : MAGIC (int), VERSION (short), longueur de l'en-tête (short), date de
+ * sauvegarde en millisecondes (long), nombre de cours (int), longueur des données (int), CRC32 des données (long),
+ * puis, pour chaque cours, le sigle, le nom et la session encodés en UTF-8 et précédés de leur longueur (short).
+ */
+public class CatalogSnapshot {
+
+    /**
+     * L'identifiant du format de fichier ("CFXS").
+     */
+    private final static int MAGIC = 0x43465853;
+
+    /**
+     * La version courante du format de fichier. Un instantané d'une autre version est ignoré.
+     */
+    private final static short VERSION = 1;
+
+    /**
+     * La longueur de l'en-tête du fichier, en octets.
+     */
+    private final static short HEADER_LENGTH = 4 + 2 + 2 + 8 + 4 + 4 + 8;
+
+    /**
+     * L'âge maximal, en millisecondes, d'un instantané considéré utilisable (30 jours).
+     */
+    private final static long MAX_AGE_MILLIS = 30L * 24 * 60 * 60 * 1000;
+
+    /**
+     * Le répertoire où sont conservés les instantanés, un fichier par session.
+     */
+    private final Path directory;
+
+    /**
+     * La dernière liste de cours à sauvegarder, par session, en attente du fil d'écriture.
+     */
+    private final Map<String, List<Course>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Le fil d'exécution qui sauvegarde les instantanés en arrière-plan, créé à la première sauvegarde.
+     */
+    private ExecutorService writer;
+
+    /**
+     * Le constructeur de la classe CatalogSnapshot, qui utilise le répertoire par défaut de l'application dans le
+     * répertoire personnel de l'utilisateur, à moins que la propriété système "client.snapshot.dir" soit définie.
+     */
+    public CatalogSnapshot() {
+        this(Paths.get(System.getProperty("client.snapshot.dir",
+                Paths.get(System.getProperty("user.home"), ".client_fx", "snapshots").toString())));
+    }
+
+    /**
+     * Le constructeur de la classe CatalogSnapshot.
+     * @param directory correspond au répertoire où sont conservés les instantanés.
+     */
+    public CatalogSnapshot(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Cette méthode demande la sauvegarde de la liste de cours d'une session par le fil d'écriture, sans attendre
+     * qu'elle soit faite. Si plusieurs listes d'une même session attendent, seule la dernière est écrite.
+     *
+     * @param session correspond à la session de la liste de cours.
+     * @param courses correspond à la liste de cours reçue du serveur, qui ne doit plus être modifiée.
+     */
+    public void saveLater(String session, List<Course> courses) {
+        // A save is already queued for this session: it will write this newer list
+        if (pending.put(session, courses) != null)
+            return;
+
+        writer().execute(() -> {
+            List<Course> latest = pending.remove(session);
+            try {
+                save(session, latest);
+            } catch (IOException | RuntimeException e) {
+                System.out.println("L'instantané de la session " + session + " n'a pas pu être sauvegardé: " + e);
+            }
+        });
+    }
+
+    /**
+     * Cette méthode retourne le fil d'écriture des instantanés, qui est créé s'il n'existe pas déjà.
+     *
+     * @return l'exécuteur du fil d'écriture.
+     */
+    private synchronized ExecutorService writer() {
+        if (writer == null) {
+            writer = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "snapshot-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return writer;
+    }
+
+    /**
+     * Cette méthode sauvegarde la liste de cours d'une session dans son instantané.
+     * <p>
+     * Le fichier est d'abord écrit dans un fichier temporaire, puis déplacé de façon atomique, afin qu'un lecteur
+     * ne puisse jamais observer un instantané partiellement écrit.
+     *
+     * @param session correspond à la session de la liste de cours.
+     * @param courses correspond à la liste de cours reçue du serveur.
+     * @throws IOException si l'écriture du fichier échoue.
+     */
+    public void save(String session, List<Course> courses) throws IOException {
+        ByteBuffer payload = encode(courses);
+
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        header.putInt(MAGIC)
+                .putShort(VERSION)
+                .putShort(HEADER_LENGTH)
+                .putLong(System.currentTimeMillis())
+                .putInt(courses.size())
+                .putInt(payload.remaining())
+                .putLong(crc.getValue())
+                .flip();
+
+        Files.createDirectories(directory);
+        Path target = fileFor(session);
+        Path tmp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ByteBuffer[] buffers = {header, payload};
+                while (header.hasRemaining() || payload.hasRemaining())
+                    channel.write(buffers);
+                channel.force(true);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Cette méthode lit l'instantané de la liste de cours d'une session.
+     *
+     * @param session correspond à la session pour laquelle la liste de cours est demandée.
+     * @return la liste de cours de l'instantané, ou null si l'instantané est absent, corrompu, d'une autre version
+     * ou trop ancien.
+     */
+    public List<Course> load(String session) {
+        Path file = fileFor(session);
+        if (!Files.isRegularFile(file))
+            return null;
+
+        // The file is read into the heap rather than mapped: a mapping stays open until it is garbage collected,
+        // and on Windows an open mapping prevents the file from being replaced or deleted
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_LENGTH || size > Integer.MAX_VALUE) {
+                buffer = null;
+            } else {
+                buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0)
+                        break;
+                }
+                buffer.flip();
+            }
+        } catch (IOException e) {
+            return discard(file, e.toString());
+        }
+        if (buffer == null || buffer.remaining() < HEADER_LENGTH)
+            return discard(file, "taille invalide");
+
+        try {
+            if (buffer.getInt() != MAGIC)
+                return discard(file, "format inconnu");
+            if (buffer.getShort() != VERSION)
+                return discard(file, "version périmée");
+            if (buffer.getShort() != HEADER_LENGTH)
+                return discard(file, "en-tête invalide");
+
+            long savedAt = buffer.getLong();
+            int count = buffer.getInt();
+            int payloadLength = buffer.getInt();
+            long checksum = buffer.getLong();
+
+            if (System.currentTimeMillis() - savedAt > MAX_AGE_MILLIS)
+                return discard(file, "instantané trop ancien");
+            if (count < 0 || count > payloadLength / 6 || payloadLength != buffer.limit() - HEADER_LENGTH)
+                return discard(file, "longueur invalide");
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate());
+            if (crc.getValue() != checksum)
+                return discard(file, "somme de contrôle invalide");
+
+            List<Course> courses = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String code = getString(buffer);
+                String name = getString(buffer);
+                courses.add(new Course(name, code, getString(buffer)));
+            }
+            if (buffer.hasRemaining())
+                return discard(file, "données excédentaires");
+
+            return courses;
+
+        } catch (RuntimeException e) {
+            // BufferUnderflowException, IllegalArgumentException, ... : the file is corrupt
+            return discard(file, e.toString());
+        }
+    }
+
+    /**
+     * Cette méthode encode la liste de cours dans le format des données de l'instantané.
+     *
+     * @param courses correspond à la liste de cours à encoder.
+     * @return le tampon des données encodées, prêt à être lu.
+     */
+    private ByteBuffer encode(List<Course> courses) {
+        List<byte[]> fields = new ArrayList<>(courses.size() * 3);
+        int length = 0;
+        for (Course course : courses) {
+            for (String field : new String[]{course.getCode(), course.getName(), course.getSession()}) {
+                byte[] bytes = (field == null ? "" : field).getBytes(StandardCharsets.UTF_8);
+                if (bytes.length > Short.MAX_VALUE)
+                    throw new IllegalArgumentException("Champ trop long pour l'instantané: " + course);
+                fields.add(bytes);
+                length += 2 + bytes.length;
+            }
+        }
+
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        for (byte[] bytes : fields)
+            payload.putShort((short) bytes.length).put(bytes);
+        return payload.flip();
+    }
+
+    /**
+     * Cette méthode lit une chaîne de caractères UTF-8 précédée de sa longueur.
+     *
+     * @param buffer correspond au tampon positionné sur la longueur de la chaîne.
+     * @return la chaîne de caractères lue.
+     */
+    private String getString(ByteBuffer buffer) {
+        int length = buffer.getShort();
+        if (length < 0 || length > buffer.remaining())
+            throw new IllegalArgumentException("longueur de champ invalide");
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Cette méthode supprime un instantané inutilisable.
+     *
+     * @param file correspond au fichier de l'instantané.
+     * @param reason correspond à la raison pour laquelle l'instantané est ignoré.
+     * @return null, puisqu'aucune liste de cours ne peut être lue.
+     */
+    private List<Course> discard(Path file, String reason) {
+        System.out.println("Instantané ignoré (" + reason + "): " + file);
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // The snapshot is ignored anyway, it will be overwritten by the next save
+        }
+        return null;
+    }
+
+    /**
+     * Cette méthode détermine le fichier de l'instantané d'une session.
+     *
+     * @param session correspond à la session.
+     * @return le chemin du fichier de l'instantané.
+     */
+    private Path fileFor(String session) {
+        return directory.resolve(session.replaceAll("[^A-Za-z0-9_-]", "_") + ".snapshot");
+    }
+}
@@ -0,0 +1,407 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Cette classe implémente le mode ligne de commande de l'application, sans interface graphique.
+ * <p>
+ * Le mode ligne de commande réutilise le client et les règles de validation du formulaire d'inscription, mais ne
+ * charge aucune classe JavaFX : il démarre rapidement et ne nécessite pas d'affichage, ce qui permet de l'appeler
+ * depuis des scripts ou des sondes de surveillance.
+ * <p>
+ * Commandes :
+ * <ul>
+ *     <li>charger &lt;session&gt; : affiche la liste des cours offerts à la session.</li>
+ *     <li>inscrire &lt;session&gt; &lt;sigle&gt; &lt;prenom&gt; &lt;nom&gt; &lt;email&gt; &lt;matricule&gt; :
+ *     inscrit un étudiant à un cours.</li>
+ *     <li>--batch : lit les commandes ci-dessus sur l'entrée standard, une par ligne.</li>
+ * </ul>
+ * L'option --format json|tsv (tsv par défaut) choisit le format de sortie. En mode --batch, chaque commande produit
+ * une ligne JSON ou un bloc TSV, écrit dès que la commande est traitée.
+ */
+public class Cli {
+
+    /**
+     * Le code de sortie d'une exécution réussie.
+     */
+    private final static int EXIT_OK = 0;
+
+    /**
+     * Le code de sortie d'une exécution dont au moins une commande a échoué.
+     */
+    private final static int EXIT_FAILURE = 1;
+
+    /**
+     * Le code de sortie d'une ligne de commande invalide.
+     */
+    private final static int EXIT_USAGE = 2;
+
+    /**
+     * L'objet de la classe Client qui transmet les requêtes au serveur.
+     */
+    private final Client client;
+
+    /**
+     * La sortie sur laquelle les résultats sont écrits.
+     */
+    private final PrintWriter out;
+
+    /**
+     * true si les résultats sont écrits au format JSON, false pour le format TSV.
+     */
+    private final boolean json;
+
+    /**
+     * Les dernières listes de cours obtenues, par session, afin de ne pas répéter la requête "CHARGER" pour chaque
+     * inscription d'un même lot. La commande charger interroge toujours le serveur.
+     */
+    private final Map<String, List<Course>> coursesBySession = new HashMap<>();
+
+    /**
+     * Le constructeur de la classe Cli.
+     *
+     * @param client correspond au client qui transmet les requêtes au serveur.
+     * @param out correspond à la sortie sur laquelle les résultats sont écrits.
+     * @param json correspond au format de sortie, JSON si true, sinon TSV.
+     */
+    public Cli(Client client, PrintWriter out, boolean json) {
+        this.client = client;
+        this.out = out;
+        this.json = json;
+    }
+
+    /**
+     * Cette méthode indique si un argument de la ligne de commande correspond au mode ligne de commande.
+     *
+     * @param arg correspond au premier argument de la ligne de commande.
+     * @return true si l'argument est une commande du mode ligne de commande.
+     */
+    public static boolean isCommand(String arg) {
+        return arg.equals("charger") || arg.equals("inscrire") || arg.equals("--batch")
+                || arg.equals("--format") || arg.equals("--help");
+    }
+
+    /**
+     * Cette méthode exécute une commande.
+     *
+     * @param args correspond à la commande et à ses arguments.
+     * @return true si la commande a réussi.
+     */
+    public boolean execute(List<String> args) {
+        if (args.isEmpty())
+            return true;
+
+        String command = args.get(0);
+        try {
+            switch (command) {
+                case "charger":
+                    if (args.size() != 2)
+                        return error(command, "Usage: charger <session>");
+                    return charger(args.get(1));
+                case "inscrire":
+                    if (args.size() != 7)
+                        return error(command, "Usage: inscrire <session> <sigle> <prenom> <nom> <email> <matricule>");
+                    return inscrire(args.get(1), args.get(2), args.get(3), args.get(4), args.get(5), args.get(6));
+                default:
+                    return error(command, "Commande inconnue: " + command);
+            }
+        } catch (RuntimeException e) {
+            return error(command, "La requête a échoué: " + e);
+        } finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Cette méthode affiche la liste des cours offerts à une session donnée.
+     *
+     * @param session pour laquelle la liste de cours offerts est demandée.
+     * @return true si la liste a été obtenue.
+     */
+    private boolean charger(String session) {
+        // Always ask the server: a batch that repeats charger must see the current list (or the outage)
+        List<Course> courses = loadCourses(session);
+
+        if (json) {
+            StringBuilder sb = new StringBuilder("{\"commande\":\"charger\",\"session\":").append(quote(session))
+                    .append(",\"cours\":[");
+            for (int i = 0; i < courses.size(); i++) {
+                Course course = courses.get(i);
+                if (i > 0)
+                    sb.append(',');
+                sb.append("{\"code\":").append(quote(course.getCode()))
+                        .append(",\"nom\":").append(quote(course.getName()))
+                        .append(",\"session\":").append(quote(course.getSession())).append('}');
+            }
+            out.println(sb.append("]}"));
+        } else {
+            for (Course course : courses)
+                out.println(tsv(course.getCode()) + '\t' + tsv(course.getName()) + '\t' + tsv(course.getSession()));
+        }
+        return true;
+    }
+
+    /**
+     * Cette méthode valide les données d'inscription et transmet la requête d'inscription au serveur.
+     *
+     * @return true si l'inscription a été transmise au serveur.
+     */
+    private boolean inscrire(String session, String code, String prenom, String nom, String email, String matricule) {
+        List<String> errors = new ArrayList<>();
+
+        try {
+            InputValidator.validatePrenom(prenom);
+        } catch (InvalidRegexPatternException e) {
+            errors.add(e.getMessage());
+        }
+
+        try {
+            InputValidator.validateNom(nom);
+        } catch (InvalidRegexPatternException e) {
+            errors.add(e.getMessage());
+        }
+
+        try {
+            InputValidator.validateEmail(email);
+        } catch (InvalidRegexPatternException e) {
+            errors.add(e.getMessage());
+        }
+
+        try {
+            InputValidator.validateMatricule(matricule);
+        } catch (InvalidRegexPatternException e) {
+            errors.add(e.getMessage());
+        }
+
+        if (!errors.isEmpty())
+            return error("inscrire", "Le formulaire est invalide: " + String.join("; ", errors));
+
+        Course course = findCourse(coursesBySession.get(session), code);
+        if (course == null)
+            course = findCourse(loadCourses(session), code);
+        if (course == null)
+            return error("inscrire", "Le cours " + code + " n'est pas offert à la session " + session);
+
+        String confirmation;
+        synchronized (client) {
+            client.inscrire(new RegistrationForm(prenom, nom, email, matricule, course));
+            confirmation = client.getConfirmMsgFromServer();
+        }
+
+        if (json)
+            out.println("{\"commande\":\"inscrire\",\"statut\":\"OK\",\"message\":" + quote(confirmation) + "}");
+        else
+            out.println("OK\t" + tsv(confirmation));
+        return true;
+    }
+
+    /**
+     * Cette méthode obtient du serveur la liste des cours offerts à une session et la conserve pour les inscriptions
+     * suivantes.
+     *
+     * @param session pour laquelle la liste de cours offerts est demandée.
+     * @return la liste de cours offerts.
+     */
+    private List<Course> loadCourses(String session) {
+        List<Course> courses;
+        synchronized (client) {
+            client.charger(session);
+            courses = client.getFilteredSortedList();
+        }
+        coursesBySession.put(session, courses);
+        return courses;
+    }
+
+    /**
+     * Cette méthode cherche un cours par son sigle dans une liste de cours.
+     *
+     * @param courses correspond à la liste de cours, ou null si elle n'a pas encore été obtenue.
+     * @param code correspond au sigle du cours.
+     * @return le cours, ou null s'il n'est pas dans la liste.
+     */
+    private static Course findCourse(List<Course> courses, String code) {
+        if (courses == null)
+            return null;
+        for (Course course : courses) {
+            if (course.getCode().equalsIgnoreCase(code))
+                return course;
+        }
+        return null;
+    }
+
+    /**
+     * Cette méthode affiche un message d'erreur pour une commande.
+     *
+     * @param command correspond à la commande qui a échoué.
+     * @param message correspond au message d'erreur.
+     * @return false, puisque la commande a échoué.
+     */
+    private boolean error(String command, String message) {
+        if (json)
+            out.println("{\"commande\":" + quote(command) + ",\"statut\":\"ERREUR\",\"message\":" + quote(message) + "}");
+        else
+            out.println("ERREUR\t" + tsv(message));
+        return false;
+    }
+
+    /**
+     * Cette méthode exécute les commandes lues sur une entrée, une par ligne.
+     *
+     * @param in correspond à l'entrée sur laquelle les commandes sont lues.
+     * @return true si toutes les commandes ont réussi.
+     * @throws IOException si la lecture de l'entrée échoue.
+     */
+    public boolean executeBatch(BufferedReader in) throws IOException {
+        boolean success = true;
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.isBlank() || line.trim().startsWith("#"))
+                continue;
+            success &= execute(tokenize(line));
+        }
+        return success;
+    }
+
+    /**
+     * Cette méthode découpe une ligne de commande en arguments séparés par des espaces. Un argument entouré de
+     * guillemets peut contenir des espaces (par exemple, un prénom composé).
+     *
+     * @param line correspond à la ligne de commande.
+     * @return les arguments de la ligne de commande.
+     */
+    static List<String> tokenize(String line) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        boolean quoted = false, inToken = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+                inToken = true;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (inToken)
+                    tokens.add(token.toString());
+                token.setLength(0);
+                inToken = false;
+            } else {
+                token.append(c);
+                inToken = true;
+            }
+        }
+        if (inToken)
+            tokens.add(token.toString());
+        return tokens;
+    }
+
+    /**
+     * Cette méthode encode une chaîne de caractères en chaîne JSON.
+     *
+     * @param s correspond à la chaîne de caractères.
+     * @return la chaîne JSON, entre guillemets, ou null.
+     */
+    private static String quote(String s) {
+        if (s == null)
+            return "null";
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20)
+                        sb.append(String.format("\\u%04x", (int) c));
+                    else
+                        sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Cette méthode retire d'une chaîne de caractères les séparateurs du format TSV.
+     *
+     * @param s correspond à la chaîne de caractères.
+     * @return la chaîne sans tabulation ni saut de ligne.
+     */
+    private static String tsv(String s) {
+        return s == null ? "" : s.replaceAll("[\\t\\r\\n]+", " ");
+    }
+
+    /**
+     * Le point d'entrée du mode ligne de commande.
+     *
+     * @param args correspond aux arguments de la ligne de commande.
+     */
+    public static void main(String[] args) {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+
+        boolean json = false;
+        int formatIndex = arguments.indexOf("--format");
+        if (formatIndex >= 0) {
+            if (formatIndex + 1 >= arguments.size()) {
+                usage();
+                System.exit(EXIT_USAGE);
+            }
+            String format = arguments.get(formatIndex + 1).toLowerCase(Locale.ROOT);
+            if (!format.equals("json") && !format.equals("tsv")) {
+                usage();
+                System.exit(EXIT_USAGE);
+            }
+            json = format.equals("json");
+            arguments.subList(formatIndex, formatIndex + 2).clear();
+        }
+
+        if (arguments.isEmpty() || arguments.get(0).equals("--help")) {
+            usage();
+            System.exit(arguments.isEmpty() ? EXIT_USAGE : EXIT_OK);
+        }
+
+        // Keep the client's connection messages out of the command output
+        PrintStream stdout = System.out;
+        System.setOut(System.err);
+
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(stdout, StandardCharsets.UTF_8));
+        // No snapshot: scripts and probes must not write to disk nor replace the state cached by the graphical client
+        Cli cli = new Cli(new Client(EndpointBalancer.fromConfiguration(), null), out, json);
+
+        boolean success;
+        if (arguments.get(0).equals("--batch")) {
+            try {
+                success = cli.executeBatch(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)));
+            } catch (IOException e) {
+                System.err.println("La lecture des commandes a échoué: " + e);
+                success = false;
+            }
+        } else {
+            success = cli.execute(arguments);
+        }
+
+        out.flush();
+        System.exit(success ? EXIT_OK : EXIT_FAILURE);
+    }
+
+    /**
+     * Cette méthode affiche l'aide du mode ligne de commande.
+     */
+    private static void usage() {
+        System.err.println("Usage:");
+        System.err.println("  App charger <session> [--format json|tsv]");
+        System.err.println("  App inscrire <session> <sigle> <prenom> <nom> <email> <matricule> [--format json|tsv]");
+        System.err.println("  App --batch [--format json|tsv]   (commandes lues sur l'entrée standard)");
+    }
+}
@@ -2,7 +2,6 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutput;
 import java.io.ObjectOutputStream;
-import java.net.Socket;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -17,23 +16,50 @@ import java.util.List;
 public class Client {
 
     /**
-     * Le point de communication, du côté du client, qui autorise des flux de données en entrée et en sortie.
+     * L'enregistreur des échanges avec le serveur, ou null si l'enregistrement n'est pas activé (propriété système
+     * "client.record").
      */
-    static private Socket socket;
+    private final static TrafficRecorder recorder = TrafficRecorder.fromConfiguration();
+
+    /**
+     * La couche de transport qui ouvre les connexions avec le serveur.
+     */
+    private final Transport transport;
+
+    /**
+     * La connexion de la requête en cours, qui autorise des flux de données en entrée et en sortie.
+     */
+    private Connection connection;
     /**
      * Un objet qui permet de lire des données relatives à un objet dans un flux binaire.
      *<p>
      * La classe ObjectInputStream permet l'opération de désérialisation, qui consiste à créer une nouvelle instance
      * d'un objet à partir du résultat d'une sérialisation.
      */
-    static private ObjectInputStream fromServer;
+    private ObjectInputStream fromServer;
+
     /**
      * Un objet qui permet d'écrire des données relatives à un objet dans un flux binaire.
      *<p>
      * La classe ObjectOutputStream permet l'opération de sérialisation, qui consiste à transformer l'état d'un objet
      * dans le but de l'échanger en utilisant un réseau.
      */
-    static private ObjectOutput toServer;
+    private ObjectOutput toServer;
+
+    /**
+     * Le répartiteur qui choisit l'instance du serveur à laquelle chaque requête est transmise.
+     */
+    private final EndpointBalancer balancer;
+
+    /**
+     * Le point d'accès auquel la requête en cours est transmise.
+     */
+    private Endpoint endpoint;
+
+    /**
+     * Le moment (System.nanoTime) où la requête en cours a commencé.
+     */
+    private long requestStartNanos;
 
     /**
      * La réponse transmise par le serveur suite à une requête d'inscription à un cours.
@@ -44,14 +70,62 @@ public class Client {
      * La liste des cours offerts pour une session donnée transmise par le serveur suite à une requête d'affichage
      * de cours.
      */
-    private List<Course> filteredSortedList;
+    private volatile List<Course> filteredSortedList;
+
+    /**
+     * L'instantané local des listes de cours, qui permet d'afficher la dernière liste connue au démarrage, ou null
+     * si les instantanés ne sont pas utilisés.
+     */
+    private final CatalogSnapshot snapshot;
 
     /**
      * Le constructeur de la classe Client, qui initialise la liste de cours et la réponse qui seront envoyées par le serveur.
      */
     public Client(){
+        this(EndpointBalancer.fromConfiguration());
+    }
+
+    /**
+     * Le constructeur de la classe Client, qui transmet les requêtes aux points d'accès d'un répartiteur donné.
+     * @param balancer correspond au répartiteur des instances du serveur.
+     */
+    public Client(EndpointBalancer balancer){
+        this(balancer, new CatalogSnapshot());
+    }
+
+    /**
+     * Le constructeur de la classe Client, qui transmet les requêtes aux points d'accès d'un répartiteur donné et
+     * conserve les listes de cours reçues dans un instantané donné.
+     * @param balancer correspond au répartiteur des instances du serveur.
+     * @param snapshot correspond à l'instantané des listes de cours, ou null pour ne pas en conserver (par exemple,
+     * pour rejouer des échanges sans écrire sur le disque).
+     */
+    public Client(EndpointBalancer balancer, CatalogSnapshot snapshot){
+        this(balancer, snapshot, Transport.fromConfiguration());
+    }
+
+    /**
+     * Le constructeur de la classe Client, qui ouvre les connexions par une couche de transport donnée.
+     * @param balancer correspond au répartiteur des instances du serveur.
+     * @param snapshot correspond à l'instantané des listes de cours, ou null pour ne pas en conserver.
+     * @param transport correspond à la couche de transport.
+     */
+    public Client(EndpointBalancer balancer, CatalogSnapshot snapshot, Transport transport){
         this.filteredSortedList = new ArrayList<>();
         this.confirmMsgFromServer = "default message";
+        this.snapshot = snapshot;
+        this.balancer = balancer;
+        this.transport = transport;
+    }
+
+    /**
+     * Cette méthode crée un client qui partage le répartiteur, l'instantané et la couche de transport de ce client,
+     * mais qui transmet ses requêtes par ses propres connexions : ses requêtes n'attendent pas celles de ce client.
+     *
+     * @return le nouveau client.
+     */
+    public Client fork(){
+        return new Client(balancer, snapshot, transport);
     }
 
     /**
@@ -74,32 +148,110 @@ public class Client {
     /**
      * Cette méthode est appelée pour établir une connexion avec le programme serveur.
      * <p>
-     * Cette méthode permet de créer une connexion sur le port utilisé par le serveur. Elle initialise aussi
-     * les canaux de flux d'entrée et de sortie de données sérialisées.
+     * Cette méthode permet de créer une connexion sur le port utilisé par l'instance du serveur choisie par le
+     * répartiteur. Si la connexion échoue, l'instance est écartée et une autre instance est essayée. Elle initialise
+     * aussi le canal de flux de sortie de données sérialisées ; celui d'entrée l'est à l'arrivée de la réponse.
+     *
+     * @param trace correspond au suivi des phases de la requête.
      */
-    private void connect(){
-        try {
-            socket = new Socket("localhost", 1337);
-            System.out.println("Le client se connecte au serveur...");
-            toServer = new ObjectOutputStream(socket.getOutputStream());
-            fromServer = new ObjectInputStream(socket.getInputStream());
-        } catch (IOException e) {
-            throw new RuntimeException();
+    private void connect(RequestTrace trace){
+        List<Endpoint> failed = new ArrayList<>();
+        IOException lastFailure = null;
+
+        for (int attempt = 0; attempt < balancer.getEndpoints().size(); attempt++) {
+            endpoint = balancer.choose(failed);
+            trace.setEndpoint(endpoint);
+            requestStartNanos = System.nanoTime();
+            connection = null;
+            try {
+                connection = transport.open(endpoint, EndpointBalancer.CONNECT_TIMEOUT_MILLIS);
+                System.out.println("Le client se connecte au serveur " + endpoint + "...");
+                // The stream header stays in the output buffer and leaves with the request
+                toServer = new ObjectOutputStream(connection.getOutputStream());
+                fromServer = null;
+                balancer.requestStarted(endpoint);
+                return;
+            } catch (IOException e) {
+                closeQuietly();
+                balancer.requestFailed(endpoint, false);
+                failed.add(endpoint);
+                lastFailure = e;
+            }
         }
+        trace.fail();
+        record(trace, false);
+        throw new RuntimeException(lastFailure);
+    }
+
+    /**
+     * Cette méthode attend que le serveur commence à transmettre sa réponse, sans la consommer, afin de distinguer
+     * le temps de traitement du serveur du temps de désérialisation de la réponse. Elle initialise ensuite le canal
+     * de flux d'entrée de données sérialisées, dont le constructeur lit l'en-tête transmis par le serveur.
+     *
+     * @throws IOException si la connexion est fermée avant que la réponse ne soit transmise.
+     */
+    private void awaitResponse() throws IOException {
+        connection.awaitResponse();
+        fromServer = new ObjectInputStream(connection.getInputStream());
     }
 
     /**
      * Cette méthode libère les ressources utilisées par le client pendant son fonctionnement.
+     *
+     * @param trace correspond au suivi des phases de la requête.
      */
-    private void disconnect(){
+    private void disconnect(RequestTrace trace){
+        balancer.requestSucceeded(endpoint, System.nanoTime() - requestStartNanos);
+        record(trace, true);
+        trace.phase(RequestTrace.DISCONNECT);
         try {
             fromServer.close();
             toServer.close();
-            socket.close();
+            connection.close();
         } catch (IOException e) {
+            trace.fail();
             throw new RuntimeException();
         }
+        trace.end();
+    }
+
+    /**
+     * Cette méthode libère les ressources d'une requête qui a échoué et écarte l'instance du serveur en cause.
+     *
+     * @param trace correspond au suivi des phases de la requête.
+     */
+    private void abort(RequestTrace trace){
+        trace.fail();
+        balancer.requestFailed(endpoint, true);
+        record(trace, false);
+        closeQuietly();
+    }
 
+    /**
+     * Cette méthode enregistre l'échange en cours, si l'enregistrement des échanges est activé.
+     *
+     * @param trace correspond au suivi de la requête, qui en donne la commande et la session.
+     * @param success correspond à true si l'échange a réussi.
+     */
+    private void record(RequestTrace trace, boolean success){
+        if (recorder == null)
+            return;
+        recorder.record(trace.getCommand(), trace.getSession(), requestStartNanos,
+                System.nanoTime() - requestStartNanos,
+                connection == null ? 0 : connection.getBytesSent(), connection == null ? 0 : connection.getBytesReceived(),
+                success);
+    }
+
+    /**
+     * Cette méthode ferme la connexion en ignorant les erreurs, puisqu'elle est déjà inutilisable.
+     */
+    private void closeQuietly(){
+        try {
+            if (connection != null)
+                connection.close();
+        } catch (IOException e) {
+            // The connection is being discarded
+        }
     }
 
     /**
@@ -111,26 +263,57 @@ public class Client {
      * @param session pour laquelle la liste de cours offerts est demandée.
      */
 
-    public void charger(String session){
+    public synchronized void charger(String session){
+
+        RequestTrace trace = new RequestTrace("CHARGER", session);
 
         // Client se connecte au serveur
-        connect();
+        trace.phase(RequestTrace.CONNECT);
+        connect(trace);
 
         // Passer la commande "CHARGER" et recevoir la liste de cours pour une session donnée du serveur
         String command_load = "CHARGER " + session;
         try {
+            trace.phase(RequestTrace.WRITE);
             toServer.writeObject(command_load);
             toServer.flush();
 
+            trace.phase(RequestTrace.SERVER_WAIT);
+            awaitResponse();
+
+            trace.phase(RequestTrace.READ_OBJECT);
             this.filteredSortedList = (List<Course>) fromServer.readObject();
 
         } catch (IOException | ClassNotFoundException e) {
-            throw new RuntimeException();
+            abort(trace);
+            throw new RuntimeException(e);
         }
 
         // Client se déconnecte du serveur après le traitement de la requête
-        disconnect();
+        disconnect(trace);
 
+        // Conserver la liste reçue pour le prochain démarrage de l'application, sans attendre l'écriture sur le disque
+        if (snapshot != null)
+            snapshot.saveLater(session, this.filteredSortedList);
+    }
+
+    /**
+     * Cette méthode charge la liste des cours offerts à une session donnée à partir de l'instantané local, sans
+     * transmettre de requête au serveur.
+     * <p>
+     * La liste obtenue peut être périmée : elle sert uniquement à remplir l'affichage en attendant la réponse à
+     * une requête "CHARGER".
+     *
+     * @param session pour laquelle la liste de cours offerts est demandée.
+     * @return true si un instantané valide a été chargé, sinon false.
+     */
+    public synchronized boolean chargerSnapshot(String session){
+        List<Course> courses = snapshot == null ? null : snapshot.load(session);
+        if (courses == null)
+            return false;
+
+        this.filteredSortedList = courses;
+        return true;
     }
 
     /**
@@ -142,31 +325,41 @@ public class Client {
      * @param registrationForm qui a été créé à partir des données validées par le contrôleur.
      */
 
-    public void inscrire(RegistrationForm registrationForm){
+    public synchronized void inscrire(RegistrationForm registrationForm){
+
+        Course course = registrationForm.getCourse();
+        RequestTrace trace = new RequestTrace("INSCRIRE", course == null ? null : course.getSession());
 
         //Client se connecte au serveur
-        connect();
+        trace.phase(RequestTrace.CONNECT);
+        connect(trace);
 
         //Passer la commande "INSCRIRE" et recevoir un message de confirmation du serveur
         String command_Register = "INSCRIRE ";
 
         try {
+            trace.phase(RequestTrace.WRITE);
             toServer.writeObject(command_Register);
-            toServer.flush();
 
-            // Transmettre le formulaire d'inscription
+            // Transmettre le formulaire d'inscription avec la commande, en une seule écriture
             toServer.writeObject(registrationForm);
             toServer.flush();
 
+            trace.phase(RequestTrace.SERVER_WAIT);
+            awaitResponse();
+
+            trace.phase(RequestTrace.READ_OBJECT);
             confirmMsgFromServer = (String) fromServer.readObject();
 
         } catch (IOException e) {
-            throw new RuntimeException();
+            abort(trace);
+            throw new RuntimeException(e);
         } catch (ClassNotFoundException e) {
-            throw new RuntimeException();
+            abort(trace);
+            throw new RuntimeException(e);
         }
 
         //Client se déconnecte du serveur après le traitement de la requête
-        disconnect();
+        disconnect(trace);
     }
 }
@@ -0,0 +1,42 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Cet événement Java Flight Recorder (JFR) mesure la durée d'une phase d'une requête transmise au serveur par le
+ * client : connexion, écriture de la commande, attente de la réponse, désérialisation et déconnexion.
+ * <p>
+ * Les événements d'une même requête partagent le même identifiant de requête. Ils ne sont créés par RequestTrace que
+ * si le Flight Recorder a été initialisé, puisque le premier usage de cette classe coûte plusieurs centaines de
+ * millisecondes, même si aucun enregistrement n'est actif.
+ */
+@Name(ClientPhaseEvent.NAME)
+@Label("Phase d'une requête du client")
+@Category({"Client FX", "Client"})
+@Description("Durée d'une phase d'une requête CHARGER ou INSCRIRE")
+public class ClientPhaseEvent extends jdk.jfr.Event {
+
+    /**
+     * Le nom de l'événement dans un enregistrement JFR.
+     */
+    public final static String NAME = "clientfx.ClientPhase";
+
+    @Label("Identifiant de requête")
+    long requestId;
+
+    @Label("Commande")
+    String command;
+
+    @Label("Session")
+    String session;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Point d'accès")
+    String endpoint;
+
+    @Label("Échec")
+    boolean failed;
+}
@@ -0,0 +1,57 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Cette interface représente une connexion ouverte par un Transport avec une instance du programme serveur.
+ * <p>
+ * Le client sérialise ses requêtes dans le flux de sortie et désérialise les réponses du flux d'entrée. Une
+ * connexion compte aussi les octets et les appels système d'écriture et de lecture, pour l'enregistrement des
+ * échanges et les mesures de performance.
+ */
+public interface Connection extends Closeable {
+
+    /**
+     * L'accesseur pour le flux de sortie de la connexion. Les données écrites ne sont transmises qu'au flush().
+     * @return le flux de sortie vers le serveur.
+     */
+    OutputStream getOutputStream();
+
+    /**
+     * L'accesseur pour le flux d'entrée de la connexion.
+     * @return le flux d'entrée depuis le serveur.
+     */
+    InputStream getInputStream();
+
+    /**
+     * Cette méthode attend que le serveur commence à transmettre sa réponse, sans la consommer.
+     *
+     * @throws IOException si la connexion est fermée avant que la réponse ne soit transmise.
+     */
+    void awaitResponse() throws IOException;
+
+    /**
+     * L'accesseur pour le nombre d'octets envoyés au serveur.
+     * @return le nombre d'octets envoyés depuis l'ouverture de la connexion.
+     */
+    long getBytesSent();
+
+    /**
+     * L'accesseur pour le nombre d'octets reçus du serveur.
+     * @return le nombre d'octets reçus depuis l'ouverture de la connexion.
+     */
+    long getBytesReceived();
+
+    /**
+     * L'accesseur pour le nombre d'écritures sur le socket (un appel système chacune).
+     * @return le nombre d'écritures depuis l'ouverture de la connexion.
+     */
+    long getWriteCalls();
+
+    /**
+     * L'accesseur pour le nombre de lectures sur le socket (un appel système chacune).
+     * @return le nombre de lectures depuis l'ouverture de la connexion.
+     */
+    long getReadCalls();
+}
@@ -1,3 +1,4 @@
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.scene.Node;
@@ -62,6 +63,18 @@ public class Controller {
      */
     private TableView<Course> table;
 
+    /**
+     * L'objet qui trie la liste de cours affichée selon l'ordre alphabétique français, avec des clés de collation
+     * calculées une seule fois par liste chargée.
+     */
+    private CourseSorter sorter;
+
+    /**
+     * Le nombre de listes de cours chargées à la demande de l'utilisateur, qui permet d'ignorer une revalidation
+     * terminée après un chargement plus récent (modifié uniquement par le fil JavaFX).
+     */
+    private int loadsCompleted;
+
     /**
      * L'objet de la classe Alert qui permet d'afficher un message d'erreur suite à la levée d'une exception.
      */
@@ -104,20 +117,87 @@ public class Controller {
 
     public void getSelection(ChoiceBox<String> choiceBox){
 
+        UiPhase action = UiPhase.start("action:charger");
         try {
             // Call charger(semester)
             this.client.charger(choiceBox.getValue());
+            loadsCompleted++;
 
             // Display courses list in tableview
-            this.updateTable(client.getFilteredSortedList());
+            this.updateTable(this.client.getFilteredSortedList());
+            action.finish();
 
         } catch (Exception e) {
+            action.fail();
             displayAlertExeptionBox(e);
             System.exit(-1);
         }
 
     }
 
+    /**
+     * Cette méthode remplit la table Liste de cours au démarrage de l'application.
+     * <p>
+     * La liste de cours de la session sélectionnée est d'abord lue dans l'instantané local (si disponible) afin
+     * d'être affichée immédiatement, puis une requête "CHARGER" est transmise au serveur en arrière-plan pour
+     * remplacer ces données, possiblement périmées, par la liste à jour. Cette requête passe par ses propres
+     * connexions ; son résultat est ignoré si l'utilisateur a chargé une liste entre-temps.
+     *
+     * @param choiceBox correspond à la session sélectionnée sur l'interface graphique.
+     */
+    public void loadSnapshot(ChoiceBox<String> choiceBox){
+
+        String session = choiceBox.getValue();
+
+        if (this.client.chargerSnapshot(session))
+            this.updateTable(client.getFilteredSortedList());
+
+        // The revalidation has its own connections: a click on "charger" meanwhile does not wait for it
+        Client revalidator = this.client.fork();
+        int loadsAtStart = loadsCompleted;
+        Thread revalidation = new Thread(() -> {
+            List<Course> freshList;
+            try {
+                revalidator.charger(session);
+                freshList = revalidator.getFilteredSortedList();
+            } catch (Exception e) {
+                // The server is unreachable: the snapshot (if any) stays on display until the user hits "charger"
+                System.out.println("La liste de cours de la session " + session + " n'a pas pu être revalidée: " + e);
+                return;
+            }
+
+            Platform.runLater(() -> {
+                // Ignore the result if the user has loaded a list or selected another session in the meantime
+                if (loadsCompleted == loadsAtStart && session.equals(choiceBox.getValue()))
+                    this.refreshTable(freshList);
+            });
+        }, "snapshot-revalidation");
+        revalidation.setDaemon(true);
+        revalidation.start();
+    }
+
+    /**
+     * Cette méthode remplace le contenu de la table Liste de cours en conservant le cours sélectionné, s'il fait
+     * toujours partie de la nouvelle liste.
+     *
+     * @param filteredSortedList correspond à la liste de cours à jour transmise par le serveur (via le client).
+     */
+    private void refreshTable(List<Course> filteredSortedList){
+
+        Course selected = this.table == null ? null : this.table.getSelectionModel().getSelectedItem();
+
+        this.updateTable(filteredSortedList);
+
+        if (selected != null) {
+            for (Course course : filteredSortedList) {
+                if (course.getCode().equals(selected.getCode())) {
+                    this.table.getSelectionModel().select(course);
+                    break;
+                }
+            }
+        }
+    }
+
     /**
      * Cette méthode modifie le contenu affiché dans la table Liste de cours.
      *
@@ -126,6 +206,8 @@ public class Controller {
      */
     private void updateTable(List<Course> filteredSortedList){
 
+        UiPhase event = UiPhase.start("updateTable");
+
         if (this.table == null){
             List<TableView> lstTableViewElements = getNodesOfType((Pane)this.view.getRoot(), TableView.class);
 ;
@@ -135,9 +217,49 @@ public class Controller {
             }
 
             this.table = lstTableViewElements.get(0);
+            this.table.setSortPolicy(tableView -> sortTable());
+        }
+
+        // The table sorts its own copy: the client's list keeps the order of the course codes
+        this.sorter = new CourseSorter(filteredSortedList);
+        this.table.setItems(FXCollections.observableArrayList(filteredSortedList));
+
+        // Keep the order chosen by the user when a new list is loaded
+        if (!this.table.getSortOrder().isEmpty())
+            this.table.sort();
+
+        event.finish();
+    }
+
+    /**
+     * Cette méthode trie la table Liste de cours selon les colonnes choisies par l'utilisateur.
+     * <p>
+     * Elle remplace la politique de tri par défaut de la table, qui compare les chaînes de caractères sans tenir
+     * compte des accents. Les colonnes sont identifiées par leur identifiant ("code" ou "name"). Si aucune colonne
+     * n'est choisie, l'ordre transmis par le serveur est rétabli.
+     *
+     * @return true, puisque le tri est toujours effectué.
+     */
+    private boolean sortTable(){
+
+        if (this.sorter == null)
+            return true;
+
+        List<CourseSorter.SortKey> order = new ArrayList<>();
+        for (TableColumn<Course, ?> column : this.table.getSortOrder()) {
+            boolean ascending = column.getSortType() == TableColumn.SortType.ASCENDING;
+            if ("code".equals(column.getId()))
+                order.add(new CourseSorter.SortKey(CourseSorter.Column.CODE, ascending));
+            else if ("name".equals(column.getId()))
+                order.add(new CourseSorter.SortKey(CourseSorter.Column.NAME, ascending));
         }
 
-        this.table.setItems(FXCollections.observableList(filteredSortedList));
+        Course selected = this.table.getSelectionModel().getSelectedItem();
+        this.table.getItems().setAll(this.sorter.sort(order));
+        if (selected != null)
+            this.table.getSelectionModel().select(selected);
+
+        return true;
     }
 
     /**
@@ -176,6 +298,7 @@ public class Controller {
 
         RegistrationForm rf;
 
+        UiPhase action = UiPhase.start("action:envoyer");
         try {
             rf = validateInputData(prenomInput, nomInput, emailInput, matriculeInput);
 
@@ -189,7 +312,9 @@ public class Controller {
                 clearTextFields(prenomInput, nomInput, emailInput, matriculeInput);
                 clearTable();
             }
+            action.finish();
         } catch (Exception e) {
+            action.fail();
             displayAlertExeptionBox(e);
             System.exit(-1);
         }
@@ -210,6 +335,7 @@ public class Controller {
 
         RegistrationForm rf;
 
+        UiPhase validation = UiPhase.start("validateInputData");
         try {
             rf = new RegistrationForm(null, null, null, null, null);
             ObservableList<Course> selectedCourse;
@@ -253,12 +379,15 @@ public class Controller {
                 validationExceptionsList.add("Il faut choisir un des cours offerts."); // e = IndexOutOfBoundException if selection missing
             }
 
+            validation.finish();
+
             if(validationExceptionsList.isEmpty())
                 return rf;
             else
                 displayAlertInputValidationBox();
 
         } catch (RuntimeException e) {
+            validation.fail();
             System.out.println("Exception autre qu'une erreur de saisie de données. ");
             e.printStackTrace();
         }
@@ -287,6 +416,8 @@ public class Controller {
      */
     private void clearTable(){
         table.getItems().clear();
+        // Otherwise the next click on a column header would bring the cleared courses back
+        sorter = null;
     }
 
     /**
@@ -322,7 +453,9 @@ public class Controller {
 
         alertException.setContentText(e.toString());
         alertException.getDialogPane().setExpandableContent(expContent);
+        UiPhase dialog = UiPhase.start("dialog:exception");
         alertException.showAndWait();
+        dialog.finish();
     }
 
     /**
@@ -337,7 +470,9 @@ public class Controller {
         for (String ex: validationExceptionsList)
             msg += "- " + ex + "\n";
         alertInputValidation.setContentText(msg);
+        UiPhase dialog = UiPhase.start("dialog:validation");
         alertInputValidation.showAndWait();
+        dialog.finish();
     }
 
     /**
@@ -348,7 +483,9 @@ public class Controller {
         confirm.setTitle("Message de confirmation");
         confirm.setHeaderText(null);
         confirm.setContentText(client.getConfirmMsgFromServer());
+        UiPhase dialog = UiPhase.start("dialog:confirmation");
         confirm.showAndWait();
+        dialog.finish();
     }
 
     /**
@@ -360,10 +497,8 @@ public class Controller {
      */
     public boolean prenomInputIsValid(TextField prenomInput) throws InvalidRegexPatternException {
 
-        if(nameMatches(prenomInput.getText(), PRENOM_REGEX_PATTERN))
-            return true;
-        else
-            throw new InvalidRegexPatternException("Le prénom est absent ou ne respecte pas le format demandé");
+        InputValidator.validatePrenom(prenomInput.getText());
+        return true;
     }
 
     /**
@@ -375,10 +510,8 @@ public class Controller {
      */
     public boolean nomInputIsValid(TextField nomInput) throws InvalidRegexPatternException {
 
-        if(nameMatches(nomInput.getText(), NOM_REGEX_PATTERN))
-            return true;
-        else
-            throw new InvalidRegexPatternException("Le nom est absent ou ne respecte pas le format demandé");
+        InputValidator.validateNom(nomInput.getText());
+        return true;
     }
     /**
      * Cette méthode valide le champ "email".
@@ -389,10 +522,8 @@ public class Controller {
      */
     public boolean emailInputIsValid(TextField emailInput) throws InvalidRegexPatternException {
 
-        if(nameMatches(emailInput.getText(), EMAIL_REGEX_PATTERN))
-            return true;
-        else
-            throw new InvalidRegexPatternException("Le email est absent ou ne respecte pas le format demandé");
+        InputValidator.validateEmail(emailInput.getText());
+        return true;
     }
 
     /**
@@ -404,10 +535,8 @@ public class Controller {
      */
     public boolean matriculeInputIsValid(TextField matriculeInput) throws InvalidRegexPatternException {
 
-        if(nameMatches(matriculeInput.getText(), MATRICULE_REGEX_PATTERN))
-            return true;
-        else
-            throw new InvalidRegexPatternException("Le matricule est absent ou ne respecte pas le format demandé");
+        InputValidator.validateMatricule(matriculeInput.getText());
+        return true;
     }
 
 
@@ -0,0 +1,154 @@
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+/**
+ * Cette classe trie une liste de cours selon l'ordre alphabétique français, sur une ou plusieurs colonnes.
+ * <p>
+ * La comparaison de chaînes avec un Collator est coûteuse, puisqu'elle analyse les accents et la casse à chaque
+ * appel. Cette classe calcule plutôt une seule fois, pour chaque cours et chaque colonne triée, une clé de collation
+ * (CollationKey) qui se compare ensuite octet par octet. Les clés sont conservées tant que la liste de cours ne
+ * change pas, de sorte que les tris suivants ne recalculent rien. Le tri est stable : les cours égaux sur toutes les
+ * colonnes triées conservent l'ordre de la liste d'origine (l'ordre des sigles transmis par le serveur).
+ */
+public class CourseSorter {
+
+    /**
+     * Les colonnes selon lesquelles la liste de cours peut être triée.
+     */
+    public enum Column {
+        CODE, NAME
+    }
+
+    /**
+     * Un critère de tri : une colonne et un sens.
+     */
+    public static class SortKey {
+        private final Column column;
+        private final boolean ascending;
+
+        public SortKey(Column column, boolean ascending) {
+            this.column = column;
+            this.ascending = ascending;
+        }
+
+        public Column getColumn() {
+            return column;
+        }
+
+        public boolean isAscending() {
+            return ascending;
+        }
+    }
+
+    /**
+     * Le nombre de cours à partir duquel les clés de collation sont calculées en parallèle.
+     */
+    private final static int PARALLEL_THRESHOLD = 4096;
+
+    /**
+     * L'objet qui définit l'ordre alphabétique français.
+     */
+    private final Collator collator;
+
+    /**
+     * Les cours de la liste d'origine, dans leur ordre d'origine, avec leurs clés de collation.
+     */
+    private final Entry[] entries;
+
+    /**
+     * true pour chaque colonne dont les clés de collation ont déjà été calculées.
+     */
+    private final boolean[] keysComputed = new boolean[Column.values().length];
+
+    /**
+     * Le constructeur de la classe CourseSorter, qui utilise l'ordre alphabétique du français canadien.
+     *
+     * @param courses correspond à la liste de cours à trier.
+     */
+    public CourseSorter(List<Course> courses) {
+        this(courses, Locale.CANADA_FRENCH);
+    }
+
+    /**
+     * Le constructeur de la classe CourseSorter.
+     *
+     * @param courses correspond à la liste de cours à trier.
+     * @param locale correspond à la langue dont l'ordre alphabétique est utilisé.
+     */
+    public CourseSorter(List<Course> courses, Locale locale) {
+        this.collator = Collator.getInstance(locale);
+        this.entries = new Entry[courses.size()];
+        for (int i = 0; i < entries.length; i++)
+            entries[i] = new Entry(courses.get(i));
+    }
+
+    /**
+     * Cette méthode trie la liste de cours selon les critères donnés, dans l'ordre de priorité.
+     *
+     * @param order correspond aux critères de tri ; une liste vide rétablit l'ordre d'origine.
+     * @return une nouvelle liste de cours triée.
+     */
+    public List<Course> sort(List<SortKey> order) {
+        Entry[] sorted = entries.clone();
+
+        if (!order.isEmpty()) {
+            Comparator<Entry> comparator = null;
+            for (SortKey sortKey : order) {
+                computeKeys(sortKey.getColumn());
+                int column = sortKey.getColumn().ordinal();
+                Comparator<Entry> c = (a, b) -> a.keys[column].compareTo(b.keys[column]);
+                if (!sortKey.isAscending())
+                    c = c.reversed();
+                comparator = comparator == null ? c : comparator.thenComparing(c);
+            }
+            // Arrays.sort on objects is a stable merge sort
+            Arrays.sort(sorted, comparator);
+        }
+
+        List<Course> courses = new ArrayList<>(sorted.length);
+        for (Entry entry : sorted)
+            courses.add(entry.course);
+        return courses;
+    }
+
+    /**
+     * Cette méthode calcule les clés de collation d'une colonne, si ce n'est pas déjà fait.
+     *
+     * @param column correspond à la colonne.
+     */
+    private void computeKeys(Column column) {
+        if (keysComputed[column.ordinal()])
+            return;
+
+        // A Collator is not thread-safe: each worker thread of a parallel computation uses its own copy
+        ThreadLocal<Collator> collators = ThreadLocal.withInitial(() -> (Collator) collator.clone());
+        IntStream indexes = IntStream.range(0, entries.length);
+        if (entries.length >= PARALLEL_THRESHOLD)
+            indexes = indexes.parallel();
+
+        indexes.forEach(i -> {
+            Course course = entries[i].course;
+            String value = column == Column.CODE ? course.getCode() : course.getName();
+            entries[i].keys[column.ordinal()] = collators.get().getCollationKey(value == null ? "" : value);
+        });
+        keysComputed[column.ordinal()] = true;
+    }
+
+    /**
+     * Un cours et ses clés de collation, une par colonne.
+     */
+    private static class Entry {
+        final Course course;
+        final CollationKey[] keys = new CollationKey[Column.values().length];
+
+        Entry(Course course) {
+            this.course = course;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Cette classe représente un point d'accès (adresse et port, ou chemin d'un socket de domaine Unix) d'une instance
+ * du programme serveur, ainsi que les statistiques utilisées par la classe EndpointBalancer pour répartir les
+ * requêtes entre les instances.
+ * <p>
+ * La latence est une moyenne mobile exponentielle des durées des requêtes réussies. Un point d'accès qui échoue
+ * est écarté, puis sondé en arrière-plan selon un délai qui double à chaque échec consécutif.
+ */
+public class Endpoint {
+
+    /**
+     * Le poids de la dernière mesure dans la moyenne mobile de la latence.
+     */
+    private final static double LATENCY_WEIGHT = 0.3;
+
+    /**
+     * La constante de temps, en nanosecondes, avec laquelle la latence d'un point d'accès qui n'est plus choisi
+     * tend vers la latence moyenne des points d'accès, afin qu'une mesure ancienne (par exemple, un démarrage à
+     * froid) ne l'écarte pas indéfiniment. Elle est longue devant l'intervalle entre deux requêtes du client, pour
+     * que la latence mesurée continue de guider le choix.
+     */
+    private final static double LATENCY_DECAY_NANOS = 60_000_000_000.0;
+
+    /**
+     * Le délai initial avant de sonder un point d'accès écarté, en millisecondes.
+     */
+    private final static long MIN_BACKOFF_MILLIS = 500;
+
+    /**
+     * Le délai maximal avant de sonder un point d'accès écarté, en millisecondes.
+     */
+    private final static long MAX_BACKOFF_MILLIS = 30_000;
+
+    /**
+     * Le préfixe de la description d'un point d'accès par socket de domaine Unix.
+     */
+    public final static String UNIX_PREFIX = "unix:";
+
+    /**
+     * Le nom d'hôte du serveur, ou null pour un socket de domaine Unix.
+     */
+    private final String host;
+
+    /**
+     * Le port utilisé par le serveur.
+     */
+    private final int port;
+
+    /**
+     * Le chemin du socket de domaine Unix du serveur, ou null pour un point d'accès TCP.
+     */
+    private final Path socketPath;
+
+    /**
+     * La moyenne mobile de la latence des requêtes réussies, en nanosecondes (0 tant qu'aucune mesure n'existe).
+     */
+    private double latencyNanos;
+
+    /**
+     * Le moment (System.nanoTime) de la dernière mesure de latence.
+     */
+    private long lastMeasureNanos;
+
+    /**
+     * Le nombre de requêtes en cours vers ce point d'accès.
+     */
+    private int inFlight;
+
+    /**
+     * Le nombre d'échecs consécutifs.
+     */
+    private int consecutiveFailures;
+
+    /**
+     * Le moment (System.nanoTime) à partir duquel un point d'accès écarté peut être sondé.
+     */
+    private long nextProbeNanos;
+
+    /**
+     * Le constructeur de la classe Endpoint.
+     *
+     * @param host correspond au nom d'hôte du serveur.
+     * @param port correspond au port utilisé par le serveur.
+     */
+    public Endpoint(String host, int port) {
+        this.host = host;
+        this.port = port;
+        this.socketPath = null;
+    }
+
+    /**
+     * Le constructeur de la classe Endpoint, pour un serveur sur la même machine joint par un socket de domaine Unix.
+     *
+     * @param socketPath correspond au chemin du socket du serveur.
+     */
+    public Endpoint(Path socketPath) {
+        this.host = null;
+        this.port = 0;
+        this.socketPath = socketPath;
+    }
+
+    /**
+     * Cette méthode crée un point d'accès à partir de sa description "hôte:port" ou "unix:chemin".
+     *
+     * @param spec correspond à la description du point d'accès, par exemple "localhost:1337", "[::1]:1337" ou
+     *             "unix:/run/serveur.sock".
+     * @return le point d'accès.
+     * @throws IllegalArgumentException si la description est invalide.
+     */
+    public static Endpoint parse(String spec) {
+        String s = spec.trim();
+        if (s.startsWith(UNIX_PREFIX)) {
+            String path = s.substring(UNIX_PREFIX.length());
+            if (path.isEmpty())
+                throw new IllegalArgumentException("Point d'accès invalide (unix:chemin attendu): " + spec);
+            return new Endpoint(Paths.get(path));
+        }
+
+        int separator = s.lastIndexOf(':');
+        if (separator <= 0 || separator == s.length() - 1)
+            throw new IllegalArgumentException("Point d'accès invalide (hôte:port attendu): " + spec);
+
+        String host = s.substring(0, separator);
+        if (host.startsWith("[") && host.endsWith("]"))
+            host = host.substring(1, host.length() - 1);
+        try {
+            return new Endpoint(host, Integer.parseInt(s.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Port invalide: " + spec);
+        }
+    }
+
+    /**
+     * L'accesseur pour l'adresse du point d'accès.
+     * @return l'adresse du socket de domaine Unix, ou l'adresse TCP (non résolue à l'avance) du serveur.
+     */
+    public SocketAddress getAddress() {
+        if (socketPath != null)
+            return UnixDomainSocketAddress.of(socketPath);
+        return new InetSocketAddress(host, port);
+    }
+
+    /**
+     * Cette méthode indique si le serveur est joint par un socket de domaine Unix.
+     * @return true pour un socket de domaine Unix, false pour TCP.
+     */
+    public boolean isUnixDomain() {
+        return socketPath != null;
+    }
+
+    /**
+     * L'accesseur pour la moyenne mobile de la latence.
+     * @return la latence moyenne des requêtes réussies, en nanosecondes.
+     */
+    public synchronized double getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    /**
+     * Cette méthode calcule la charge estimée du point d'accès : la latence moyenne, qui tend vers une latence de
+     * référence selon l'âge de la dernière mesure, multipliée par le nombre de requêtes en cours (plus la requête à
+     * venir). Un point d'accès sans mesure a une charge nulle, ce qui permet de l'essayer en priorité.
+     *
+     * @param priorNanos correspond à la latence de référence (par exemple, la moyenne des points d'accès), en
+     *                   nanosecondes.
+     * @return la charge estimée.
+     */
+    synchronized double getLoad(double priorNanos) {
+        if (latencyNanos == 0)
+            return 0;
+        double age = System.nanoTime() - lastMeasureNanos;
+        double latency = priorNanos + (latencyNanos - priorNanos) * Math.exp(-age / LATENCY_DECAY_NANOS);
+        return latency * (inFlight + 1);
+    }
+
+    /**
+     * Cette méthode indique si le point d'accès est écarté suite à un échec.
+     * @return true si le point d'accès est écarté.
+     */
+    public synchronized boolean isEjected() {
+        return consecutiveFailures > 0;
+    }
+
+    /**
+     * L'accesseur pour le moment à partir duquel le point d'accès écarté peut être sondé.
+     * @return le moment, selon System.nanoTime.
+     */
+    synchronized long getNextProbeNanos() {
+        return nextProbeNanos;
+    }
+
+    /**
+     * Cette méthode signale le début d'une requête vers ce point d'accès.
+     */
+    synchronized void requestStarted() {
+        inFlight++;
+    }
+
+    /**
+     * Cette méthode signale la réussite d'une requête et met à jour la moyenne mobile de la latence.
+     *
+     * @param nanos correspond à la durée de la requête, en nanosecondes.
+     */
+    synchronized void requestSucceeded(long nanos) {
+        inFlight = Math.max(0, inFlight - 1);
+        latencyNanos = latencyNanos == 0 ? nanos : LATENCY_WEIGHT * nanos + (1 - LATENCY_WEIGHT) * latencyNanos;
+        lastMeasureNanos = System.nanoTime();
+        consecutiveFailures = 0;
+    }
+
+    /**
+     * Cette méthode signale l'échec d'une requête (ou d'une sonde) et écarte le point d'accès.
+     *
+     * @param started correspond à true si la requête avait été signalée par requestStarted.
+     */
+    synchronized void requestFailed(boolean started) {
+        if (started)
+            inFlight = Math.max(0, inFlight - 1);
+        consecutiveFailures++;
+        long backoff = MIN_BACKOFF_MILLIS << Math.min(consecutiveFailures - 1, 16);
+        nextProbeNanos = System.nanoTime() + Math.min(backoff, MAX_BACKOFF_MILLIS) * 1_000_000;
+    }
+
+    /**
+     * Cette méthode réintègre un point d'accès écarté dont la sonde a réussi.
+     */
+    synchronized void reinstate() {
+        consecutiveFailures = 0;
+    }
+
+    @Override
+    public String toString() {
+        if (socketPath != null)
+            return UNIX_PREFIX + socketPath;
+        return host + ":" + port;
+    }
+}
@@ -0,0 +1,229 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cette classe répartit les requêtes du client entre plusieurs instances du programme serveur.
+ * <p>
+ * Le choix d'un point d'accès suit la règle des deux choix aléatoires (power of two choices) : deux points d'accès
+ * disponibles sont tirés au hasard et celui dont la charge estimée (latence moyenne et requêtes en cours) est la plus
+ * faible est retenu. Un point d'accès qui échoue est écarté, puis sondé en arrière-plan jusqu'à ce qu'une connexion
+ * réussisse à nouveau.
+ * <p>
+ * Les points d'accès par socket de domaine Unix (serveur sur la même machine) sont préférés tant qu'ils sont
+ * disponibles ; les points d'accès TCP servent alors de repli.
+ * <p>
+ * Les points d'accès sont configurés par la propriété système "client.endpoints", une liste de "hôte:port" ou
+ * "unix:chemin" séparés par des virgules ("localhost:1337" par défaut).
+ */
+public class EndpointBalancer {
+
+    /**
+     * La liste des points d'accès utilisée si la propriété "client.endpoints" n'est pas définie.
+     */
+    public final static String DEFAULT_ENDPOINTS = "localhost:1337";
+
+    /**
+     * Le délai maximal d'établissement d'une connexion, en millisecondes.
+     */
+    public final static int CONNECT_TIMEOUT_MILLIS = Integer.getInteger("client.connectTimeoutMs", 2000);
+
+    /**
+     * L'intervalle entre deux passages du fil de sondage, en millisecondes.
+     */
+    private final static long PROBE_INTERVAL_MILLIS = 250;
+
+    /**
+     * Les points d'accès configurés.
+     */
+    private final List<Endpoint> endpoints;
+
+    /**
+     * Le fil d'exécution qui sonde les points d'accès écartés, créé au premier échec.
+     */
+    private ScheduledExecutorService prober;
+
+    /**
+     * Le constructeur de la classe EndpointBalancer.
+     *
+     * @param endpoints correspond aux points d'accès entre lesquels les requêtes sont réparties.
+     */
+    public EndpointBalancer(List<Endpoint> endpoints) {
+        if (endpoints.isEmpty())
+            throw new IllegalArgumentException("Au moins un point d'accès doit être configuré.");
+        this.endpoints = Collections.unmodifiableList(new ArrayList<>(endpoints));
+    }
+
+    /**
+     * Cette méthode crée un répartiteur à partir de la configuration (propriété système "client.endpoints").
+     *
+     * @return le répartiteur des points d'accès configurés.
+     */
+    public static EndpointBalancer fromConfiguration() {
+        return parse(System.getProperty("client.endpoints", DEFAULT_ENDPOINTS));
+    }
+
+    /**
+     * Cette méthode crée un répartiteur à partir d'une liste de points d'accès.
+     *
+     * @param specs correspond aux points d'accès "hôte:port" ou "unix:chemin", séparés par des virgules.
+     * @return le répartiteur de ces points d'accès.
+     */
+    public static EndpointBalancer parse(String specs) {
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (String spec : specs.split(",")) {
+            if (!spec.isBlank())
+                endpoints.add(Endpoint.parse(spec));
+        }
+        return new EndpointBalancer(endpoints);
+    }
+
+    /**
+     * L'accesseur pour les points d'accès.
+     * @return la liste non modifiable des points d'accès configurés.
+     */
+    public List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * Cette méthode choisit le point d'accès auquel transmettre la prochaine requête.
+     * <p>
+     * Seuls les points d'accès par socket de domaine Unix sont considérés si l'un d'eux est disponible. Si tous les
+     * points d'accès sont écartés, celui qui doit être sondé le plus tôt est retourné, afin que le client tente tout
+     * de même sa requête.
+     *
+     * @param excluded correspond aux points d'accès déjà essayés sans succès pour cette requête.
+     * @return le point d'accès choisi.
+     */
+    public Endpoint choose(List<Endpoint> excluded) {
+        List<Endpoint> available = new ArrayList<>(endpoints.size());
+        List<Endpoint> local = new ArrayList<>();
+        for (Endpoint endpoint : endpoints) {
+            if (!endpoint.isEjected() && !excluded.contains(endpoint)) {
+                available.add(endpoint);
+                if (endpoint.isUnixDomain())
+                    local.add(endpoint);
+            }
+        }
+        if (!local.isEmpty())
+            available = local;
+
+        if (available.isEmpty()) {
+            Endpoint earliest = null;
+            for (Endpoint endpoint : endpoints) {
+                if (excluded.contains(endpoint))
+                    continue;
+                if (earliest == null || endpoint.getNextProbeNanos() - earliest.getNextProbeNanos() < 0)
+                    earliest = endpoint;
+            }
+            return earliest != null ? earliest : endpoints.get(0);
+        }
+
+        if (available.size() == 1)
+            return available.get(0);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(available.size());
+        int second = random.nextInt(available.size() - 1);
+        if (second >= first)
+            second++;
+
+        double prior = meanLatency(available);
+        Endpoint a = available.get(first);
+        Endpoint b = available.get(second);
+        return a.getLoad(prior) <= b.getLoad(prior) ? a : b;
+    }
+
+    /**
+     * Cette méthode calcule la latence moyenne des points d'accès qui en ont une mesure, vers laquelle tend la
+     * latence d'un point d'accès qui n'a pas été choisi depuis longtemps.
+     *
+     * @param candidates correspond aux points d'accès disponibles.
+     * @return la latence moyenne, en nanosecondes, ou 0 si aucun point d'accès n'a de mesure.
+     */
+    private static double meanLatency(List<Endpoint> candidates) {
+        double sum = 0;
+        int measured = 0;
+        for (Endpoint endpoint : candidates) {
+            double latency = endpoint.getLatencyNanos();
+            if (latency > 0) {
+                sum += latency;
+                measured++;
+            }
+        }
+        return measured == 0 ? 0 : sum / measured;
+    }
+
+    /**
+     * Cette méthode signale le début d'une requête vers un point d'accès.
+     *
+     * @param endpoint correspond au point d'accès auquel la connexion a été établie.
+     */
+    public void requestStarted(Endpoint endpoint) {
+        endpoint.requestStarted();
+    }
+
+    /**
+     * Cette méthode signale la réussite d'une requête.
+     *
+     * @param endpoint correspond au point d'accès qui a traité la requête.
+     * @param nanos correspond à la durée de la requête, en nanosecondes.
+     */
+    public void requestSucceeded(Endpoint endpoint, long nanos) {
+        endpoint.requestSucceeded(nanos);
+    }
+
+    /**
+     * Cette méthode signale l'échec d'une requête, ce qui écarte le point d'accès jusqu'à ce qu'une sonde réussisse.
+     *
+     * @param endpoint correspond au point d'accès en échec.
+     * @param started correspond à true si la connexion avait été établie (requestStarted a été appelée).
+     */
+    public void requestFailed(Endpoint endpoint, boolean started) {
+        endpoint.requestFailed(started);
+        System.out.println("Le point d'accès " + endpoint + " est écarté.");
+        startProber();
+    }
+
+    /**
+     * Cette méthode démarre le fil de sondage des points d'accès écartés, s'il n'est pas déjà démarré.
+     */
+    private synchronized void startProber() {
+        if (prober != null)
+            return;
+
+        prober = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "endpoint-prober");
+            thread.setDaemon(true);
+            return thread;
+        });
+        prober.scheduleWithFixedDelay(this::probeEjected, PROBE_INTERVAL_MILLIS, PROBE_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Cette méthode sonde les points d'accès écartés dont le délai d'attente est écoulé, en tentant d'établir une
+     * connexion. Un point d'accès qui accepte la connexion est réintégré.
+     */
+    private void probeEjected() {
+        long now = System.nanoTime();
+        for (Endpoint endpoint : endpoints) {
+            if (!endpoint.isEjected() || endpoint.getNextProbeNanos() - now > 0)
+                continue;
+
+            try {
+                NioTransport.connect(endpoint, null, CONNECT_TIMEOUT_MILLIS).close();
+                endpoint.reinstate();
+                System.out.println("Le point d'accès " + endpoint + " est réintégré.");
+            } catch (IOException e) {
+                endpoint.requestFailed(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Cet événement Java Flight Recorder (JFR) signale un blocage du fil d'exécution de l'application JavaFX détecté
+ * par la classe FxWatchdog, avec le gestionnaire d'événements en cause et la pile d'appels du fil au moment de la
+ * détection.
+ */
+@Name(FxStallEvent.NAME)
+@Label("Blocage du fil JavaFX")
+@Category({"Client FX", "Interface"})
+@Description("Blocage du fil d'exécution de l'application JavaFX au-delà du seuil configuré")
+public class FxStallEvent extends jdk.jfr.Event {
+
+    /**
+     * Le nom de l'événement dans un enregistrement JFR.
+     */
+    public final static String NAME = "clientfx.FxStall";
+
+    @Label("Gestionnaire")
+    String handler;
+
+    @Label("Durée du blocage")
+    @Timespan(Timespan.NANOSECONDS)
+    long stallDuration;
+
+    @Label("Pile d'appels")
+    String fxThreadStack;
+
+    /**
+     * Cette méthode enregistre un blocage.
+     *
+     * @param handler correspond au gestionnaire en cours, ou null.
+     * @param nanos correspond à la durée du blocage, en nanosecondes.
+     * @param fxThreadStack correspond à la pile d'appels du fil JavaFX au moment de la détection.
+     */
+    static void emit(String handler, long nanos, String fxThreadStack) {
+        FxStallEvent event = new FxStallEvent();
+        if (!event.isEnabled())
+            return;
+        event.handler = handler;
+        event.stallDuration = nanos;
+        event.fxThreadStack = fxThreadStack;
+        event.commit();
+    }
+}
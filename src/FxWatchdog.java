@@ -0,0 +1,228 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.FileHandler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+
+import javafx.application.Platform;
+import javafx.event.Event;
+import javafx.event.EventHandler;
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Cette classe surveille le fil d'exécution de l'application JavaFX et signale ses blocages.
+ * <p>
+ * Un fil de surveillance dépose régulièrement un battement (Platform.runLater) dans la file d'événements de JavaFX.
+ * Si un battement attend plus longtemps que le seuil, le fil JavaFX ne traite plus sa file : l'interface est figée.
+ * Le blocage est alors attribué au gestionnaire d'événements en cours parmi ceux enregistrés par track(). Un
+ * gestionnaire qui attend dans une boucle d'événements imbriquée, par exemple celle d'un showAndWait(), traite
+ * encore les battements : ce n'est pas un blocage (la durée des boîtes de dialogue est mesurée par UiPhaseEvent).
+ * <p>
+ * Dès sa détection, le blocage est écrit dans un journal à rotation avec le gestionnaire en cause et la pile d'appels
+ * du fil JavaFX, afin qu'un blocage définitif (ou terminé par l'arrêt de l'application) y figure aussi. À la fin du
+ * blocage, sa durée est écrite dans le journal et il est enregistré comme événement JFR FxStallEvent.
+ * <p>
+ * Propriétés système : "client.fxWatchdog" (true par défaut), "client.fxStallThresholdMs" (seuil de détection, 200
+ * par défaut) et "client.fxWatchdog.log" (modèle de nom du journal, "%h/.client_fx/fx-stalls%g.log" par défaut).
+ */
+public class FxWatchdog {
+
+    /**
+     * Le seuil au-delà duquel le fil JavaFX est considéré comme bloqué, en nanosecondes.
+     */
+    private final static long THRESHOLD_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Integer.getInteger("client.fxStallThresholdMs", 200));
+
+    /**
+     * L'intervalle entre deux vérifications du fil de surveillance, en millisecondes.
+     */
+    private final static long SAMPLE_INTERVAL_MILLIS = Math.max(10, TimeUnit.NANOSECONDS.toMillis(THRESHOLD_NANOS) / 4);
+
+    /**
+     * La taille maximale d'un fichier du journal, en octets, et le nombre de fichiers conservés.
+     */
+    private final static int LOG_LIMIT_BYTES = 1 << 20;
+    private final static int LOG_FILE_COUNT = 5;
+
+    private final static Logger logger = Logger.getLogger("clientfx.watchdog");
+
+    /**
+     * Le fil d'exécution de l'application JavaFX, ou null si la surveillance n'est pas démarrée.
+     */
+    private static volatile Thread fxThread;
+
+    /**
+     * Le nom du gestionnaire d'événements en cours sur le fil JavaFX, ou null.
+     */
+    private static volatile String currentHandler;
+
+    /**
+     * Le moment (System.nanoTime) où le gestionnaire en cours a commencé.
+     */
+    private static volatile long handlerStartNanos;
+
+    /**
+     * Le moment où le battement en attente a été déposé, ou 0 si aucun battement n'est en attente.
+     */
+    private static volatile long heartbeatPostedNanos;
+
+    /**
+     * Le moment où le fil JavaFX a traité un battement ou terminé un gestionnaire pour la dernière fois.
+     */
+    private static volatile long lastProgressNanos;
+
+    /**
+     * Le blocage en cours, consulté seulement par le fil de surveillance.
+     */
+    private static boolean stalled;
+    private static String stallHandler;
+    private static long stallStartNanos;
+    private static String stallStack;
+
+    private FxWatchdog() {
+    }
+
+    /**
+     * Cette méthode démarre la surveillance du fil JavaFX, sauf si elle est désactivée par la propriété système
+     * "client.fxWatchdog". Elle doit être appelée sur le fil JavaFX.
+     */
+    public static synchronized void install() {
+        if (fxThread != null || !Boolean.parseBoolean(System.getProperty("client.fxWatchdog", "true")))
+            return;
+        fxThread = Thread.currentThread();
+        openLog();
+
+        Thread watchdog = new Thread(FxWatchdog::watch, "fx-watchdog");
+        watchdog.setDaemon(true);
+        watchdog.start();
+    }
+
+    /**
+     * Cette méthode enregistre un gestionnaire d'événements auprès de la surveillance, afin que les blocages
+     * survenus pendant son exécution lui soient attribués.
+     *
+     * @param name correspond au nom du gestionnaire dans le journal.
+     * @param handler correspond au gestionnaire.
+     * @param <T> correspond au type d'événement traité.
+     * @return le gestionnaire chronométré.
+     */
+    public static <T extends Event> EventHandler<T> track(String name, EventHandler<T> handler) {
+        return event -> {
+            // A handler can run inside another one's nested event loop (showAndWait)
+            String outerHandler = currentHandler;
+            long outerStart = handlerStartNanos;
+            handlerStartNanos = System.nanoTime();
+            currentHandler = name;
+            try {
+                handler.handle(event);
+            } finally {
+                lastProgressNanos = System.nanoTime();
+                currentHandler = outerHandler;
+                handlerStartNanos = outerStart;
+            }
+        };
+    }
+
+    /**
+     * Cette méthode ouvre le journal à rotation des blocages. Si le fichier ne peut être ouvert, les blocages sont
+     * seulement écrits dans la journalisation par défaut.
+     */
+    private static void openLog() {
+        String pattern = System.getProperty("client.fxWatchdog.log", "%h/.client_fx/fx-stalls%g.log");
+        try {
+            if (pattern.startsWith("%h/"))
+                Files.createDirectories(Paths.get(System.getProperty("user.home"), pattern.substring(3)).getParent());
+            FileHandler file = new FileHandler(pattern, LOG_LIMIT_BYTES, LOG_FILE_COUNT, true);
+            file.setFormatter(new SimpleFormatter());
+            logger.addHandler(file);
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.INFO, "Le journal des blocages n'a pas pu être ouvert: " + e);
+        }
+    }
+
+    /**
+     * La boucle du fil de surveillance.
+     */
+    private static void watch() {
+        while (true) {
+            try {
+                Thread.sleep(SAMPLE_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            long now = System.nanoTime();
+            if (heartbeatPostedNanos == 0) {
+                heartbeatPostedNanos = now;
+                try {
+                    Platform.runLater(FxWatchdog::heartbeat);
+                } catch (IllegalStateException e) {
+                    // The JavaFX toolkit has exited
+                    return;
+                }
+            }
+            check(now);
+        }
+    }
+
+    /**
+     * Le battement, exécuté sur le fil JavaFX.
+     */
+    private static void heartbeat() {
+        lastProgressNanos = System.nanoTime();
+        heartbeatPostedNanos = 0;
+    }
+
+    /**
+     * Cette méthode détecte le début et la fin d'un blocage.
+     *
+     * @param now correspond au moment de la vérification.
+     */
+    private static void check(long now) {
+        long posted = heartbeatPostedNanos;
+
+        if (posted != 0 && now - posted > THRESHOLD_NANOS) {
+            if (stalled)
+                return;
+            stalled = true;
+            stallHandler = currentHandler;
+            // The thread is stuck since the heartbeat was posted, or since the tracked handler started after that
+            long handlerStart = handlerStartNanos;
+            stallStartNanos = stallHandler != null && handlerStart - lastProgressNanos > 0 && handlerStart - posted < 0
+                    ? handlerStart : posted;
+            stallStack = fxThreadStack();
+            logger.log(Level.WARNING, "Blocage du fil JavaFX détecté depuis "
+                    + TimeUnit.NANOSECONDS.toMillis(now - stallStartNanos) + " ms, attribué à: " + blame()
+                    + System.lineSeparator() + stallStack);
+        } else if (stalled) {
+            long nanos = Math.max(lastProgressNanos, stallStartNanos) - stallStartNanos;
+            logger.log(Level.WARNING, "Fin du blocage du fil JavaFX après " + TimeUnit.NANOSECONDS.toMillis(nanos)
+                    + " ms, attribué à: " + blame());
+            if (FlightRecorder.isInitialized())
+                FxStallEvent.emit(stallHandler, nanos, stallStack);
+            stalled = false;
+            stallHandler = null;
+            stallStack = null;
+        }
+    }
+
+    /**
+     * Cette méthode retourne le nom du gestionnaire auquel le blocage en cours est attribué, pour le journal.
+     */
+    private static String blame() {
+        return stallHandler == null ? "aucun gestionnaire suivi" : stallHandler;
+    }
+
+    /**
+     * Cette méthode capture la pile d'appels du fil JavaFX.
+     */
+    private static String fxThreadStack() {
+        StringBuilder stack = new StringBuilder();
+        for (StackTraceElement frame : fxThread.getStackTrace())
+            stack.append("\tat ").append(frame).append(System.lineSeparator());
+        return stack.toString();
+    }
+}
@@ -0,0 +1,90 @@
+import java.util.regex.Pattern;
+
+/**
+ * Cette classe regroupe les règles de validation des données d'un formulaire d'inscription.
+ * <p>
+ * Les expressions régulières sont celles définies dans la classe Controller, compilées une seule fois. Cette classe
+ * ne dépend d'aucune composante graphique : elle est utilisée par le contrôleur pour valider les champs de
+ * l'interface, mais aussi pour valider des données qui ne proviennent pas de l'interface graphique (par exemple, un
+ * fichier d'inscriptions). Ses méthodes peuvent être appelées par plusieurs fils d'exécution à la fois.
+ */
+public class InputValidator {
+
+    /**
+     * L'expression régulière compilée pour le champ "prénom".
+     */
+    private final static Pattern PRENOM_PATTERN = Pattern.compile(Controller.PRENOM_REGEX_PATTERN);
+
+    /**
+     * L'expression régulière compilée pour le champ "nom".
+     */
+    private final static Pattern NOM_PATTERN = Pattern.compile(Controller.NOM_REGEX_PATTERN);
+
+    /**
+     * L'expression régulière compilée pour le champ "email".
+     */
+    private final static Pattern EMAIL_PATTERN = Pattern.compile(Controller.EMAIL_REGEX_PATTERN);
+
+    /**
+     * L'expression régulière compilée pour le champ "matricule".
+     */
+    private final static Pattern MATRICULE_PATTERN = Pattern.compile(Controller.MATRICULE_REGEX_PATTERN);
+
+    private InputValidator() {
+    }
+
+    /**
+     * Cette méthode valide le prénom.
+     *
+     * @param prenom correspond à la chaîne de caractères à valider.
+     * @throws InvalidRegexPatternException si le prénom est absent ou invalide.
+     */
+    public static void validatePrenom(String prenom) throws InvalidRegexPatternException {
+        if (!matches(PRENOM_PATTERN, prenom))
+            throw new InvalidRegexPatternException("Le prénom est absent ou ne respecte pas le format demandé");
+    }
+
+    /**
+     * Cette méthode valide le nom.
+     *
+     * @param nom correspond à la chaîne de caractères à valider.
+     * @throws InvalidRegexPatternException si le nom est absent ou invalide.
+     */
+    public static void validateNom(String nom) throws InvalidRegexPatternException {
+        if (!matches(NOM_PATTERN, nom))
+            throw new InvalidRegexPatternException("Le nom est absent ou ne respecte pas le format demandé");
+    }
+
+    /**
+     * Cette méthode valide l'adresse email.
+     *
+     * @param email correspond à la chaîne de caractères à valider.
+     * @throws InvalidRegexPatternException si l'email est absent ou invalide.
+     */
+    public static void validateEmail(String email) throws InvalidRegexPatternException {
+        if (!matches(EMAIL_PATTERN, email))
+            throw new InvalidRegexPatternException("Le email est absent ou ne respecte pas le format demandé");
+    }
+
+    /**
+     * Cette méthode valide le matricule.
+     *
+     * @param matricule correspond à la chaîne de caractères à valider.
+     * @throws InvalidRegexPatternException si le matricule est absent ou invalide.
+     */
+    public static void validateMatricule(String matricule) throws InvalidRegexPatternException {
+        if (!matches(MATRICULE_PATTERN, matricule))
+            throw new InvalidRegexPatternException("Le matricule est absent ou ne respecte pas le format demandé");
+    }
+
+    /**
+     * Cette méthode compare une chaîne de caractères à une expression régulière compilée.
+     *
+     * @param pattern correspond à l'expression régulière compilée.
+     * @param input correspond à la chaîne de caractères à comparer.
+     * @return true si la chaîne de caractères est présente et respecte l'expression régulière.
+     */
+    private static boolean matches(Pattern pattern, String input) {
+        return input != null && pattern.matcher(input).matches();
+    }
+}
@@ -0,0 +1,125 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Ce programme résume un enregistrement Java Flight Recorder (fichier .jfr) de l'application en percentiles de
+ * latence par phase.
+ * <p>
+ * Les événements ClientPhaseEvent sont regroupés par commande et par phase, les événements UiPhaseEvent par
+ * étape, et les blocages du fil JavaFX (FxStallEvent) par gestionnaire. La durée totale de chaque
+ * requête du client (somme de ses phases) est aussi résumée par commande.
+ * <p>
+ * Usage : JfrAnalyzer &lt;enregistrement.jfr&gt;. L'enregistrement s'obtient en démarrant l'application avec
+ * l'option -XX:StartFlightRecording=filename=client.jfr.
+ */
+public class JfrAnalyzer {
+
+    /**
+     * Les durées mesurées, en nanosecondes, par groupe (trié par nom).
+     */
+    private final Map<String, List<Long>> durations = new TreeMap<>();
+
+    /**
+     * Le nombre d'événements en échec par groupe.
+     */
+    private final Map<String, Integer> failures = new HashMap<>();
+
+    /**
+     * Cette méthode lit tous les événements de l'application d'un enregistrement JFR.
+     *
+     * @param recording correspond au fichier de l'enregistrement.
+     * @throws IOException si la lecture de l'enregistrement échoue.
+     */
+    public void read(Path recording) throws IOException {
+        Map<Long, long[]> requestTotals = new HashMap<>();
+        Map<Long, String> requestCommands = new HashMap<>();
+
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                String type = event.getEventType().getName();
+                long nanos = event.getDuration().toNanos();
+
+                if (type.equals(ClientPhaseEvent.NAME)) {
+                    String command = event.getString("command");
+                    add("client " + command + " " + event.getString("phase"), nanos, event.getBoolean("failed"));
+
+                    long requestId = event.getLong("requestId");
+                    requestTotals.computeIfAbsent(requestId, id -> new long[1])[0] += nanos;
+                    requestCommands.put(requestId, command);
+                } else if (type.equals(UiPhaseEvent.NAME)) {
+                    add("ui " + event.getString("phase"), nanos, event.getBoolean("failed"));
+                } else if (type.equals(FxStallEvent.NAME)) {
+                    String handler = event.getString("handler");
+                    add("stall " + (handler == null ? "-" : handler),
+                            event.getDuration("stallDuration").toNanos(), false);
+                }
+            }
+        }
+
+        for (Map.Entry<Long, long[]> total : requestTotals.entrySet())
+            add("client " + requestCommands.get(total.getKey()) + " total", total.getValue()[0], false);
+    }
+
+    /**
+     * Cette méthode ajoute une durée à un groupe.
+     */
+    private void add(String group, long nanos, boolean failed) {
+        durations.computeIfAbsent(group, g -> new ArrayList<>()).add(nanos);
+        if (failed)
+            failures.merge(group, 1, Integer::sum);
+    }
+
+    /**
+     * Cette méthode affiche le résumé des durées par groupe.
+     */
+    public void print() {
+        System.out.printf("%-36s %7s %6s %10s %10s %10s %10s%n", "phase", "n", "échecs", "p50 (ms)", "p90 (ms)",
+                "p99 (ms)", "max (ms)");
+        for (Map.Entry<String, List<Long>> group : durations.entrySet()) {
+            long[] sorted = group.getValue().stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            System.out.printf("%-36s %7d %6d %10.3f %10.3f %10.3f %10.3f%n", group.getKey(), sorted.length,
+                    failures.getOrDefault(group.getKey(), 0), percentile(sorted, 50), percentile(sorted, 90),
+                    percentile(sorted, 99), sorted[sorted.length - 1] / 1e6);
+        }
+    }
+
+    /**
+     * Cette méthode calcule un percentile (méthode du rang le plus proche).
+     *
+     * @param sorted correspond aux durées triées, en nanosecondes.
+     * @param percentile correspond au percentile recherché, entre 0 et 100.
+     * @return le percentile, en millisecondes.
+     */
+    static double percentile(long[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))] / 1e6;
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.err.println("Usage: JfrAnalyzer <enregistrement.jfr>");
+            System.exit(2);
+        }
+
+        JfrAnalyzer analyzer = new JfrAnalyzer();
+        try {
+            analyzer.read(Paths.get(args[0]));
+        } catch (IOException e) {
+            System.err.println("L'enregistrement n'a pas pu être lu: " + e);
+            System.exit(1);
+        }
+        analyzer.print();
+    }
+}
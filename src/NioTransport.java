@@ -0,0 +1,274 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cette classe est un transport par SocketChannel (NIO), en mode bloquant, dont les tampons sont des ByteBuffer
+ * directs réutilisés d'une connexion à l'autre.
+ * <p>
+ * Un tampon direct est lu et écrit par le système sans copie intermédiaire, alors que la JVM copie un tableau
+ * d'octets dans un tampon direct temporaire à chaque appel système. Toutes les écritures passent donc par le tampon
+ * direct de la connexion, y compris celles qui sont plus grandes que lui, qui y sont copiées par morceaux. Les tampons
+ * directs coûtent cher à allouer : ils sont conservés dans une réserve plutôt que recréés à chaque requête.
+ * <p>
+ * Ce transport joint aussi un serveur sur la même machine par un socket de domaine Unix, ce qui évite le coût de la
+ * pile TCP.
+ */
+public class NioTransport implements Transport {
+
+    /**
+     * La taille des tampons lorsque les options n'en précisent pas.
+     */
+    private final static int DEFAULT_BUFFER_SIZE = 8192;
+
+    /**
+     * Le nombre maximal de tampons conservés dans la réserve.
+     */
+    private final static int MAX_POOLED_BUFFERS = 64;
+
+    private final TransportOptions options;
+    private final int bufferSize;
+
+    /**
+     * La réserve de tampons directs libres.
+     */
+    private final ConcurrentLinkedQueue<ByteBuffer> pool = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    /**
+     * Le constructeur de la classe NioTransport.
+     *
+     * @param options correspond aux options du socket et à la taille des tampons.
+     */
+    public NioTransport(TransportOptions options) {
+        this.options = options;
+        this.bufferSize = options.getIoBufferSize() > 0 ? options.getIoBufferSize() : DEFAULT_BUFFER_SIZE;
+    }
+
+    @Override
+    public Connection open(Endpoint endpoint, int connectTimeoutMillis) throws IOException {
+        SocketChannel channel = connect(endpoint, options, connectTimeoutMillis);
+        return new ChannelConnection(channel, acquire(), acquire());
+    }
+
+    /**
+     * Cette méthode ouvre un canal bloquant connecté à un point d'accès, par TCP ou par socket de domaine Unix.
+     *
+     * @param endpoint correspond au point d'accès du serveur.
+     * @param options correspond aux options du socket, ou null pour les options par défaut du système.
+     * @param connectTimeoutMillis correspond au délai maximal d'établissement d'une connexion TCP, en millisecondes.
+     * @return le canal connecté.
+     * @throws IOException si la connexion ne peut pas être établie.
+     */
+    static SocketChannel connect(Endpoint endpoint, TransportOptions options, int connectTimeoutMillis)
+            throws IOException {
+        SocketChannel channel = endpoint.isUnixDomain()
+                ? SocketChannel.open(StandardProtocolFamily.UNIX) : SocketChannel.open();
+        try {
+            if (options != null)
+                options.apply(channel);
+            if (endpoint.isUnixDomain()) {
+                // A local connection is accepted or refused at once
+                channel.connect(endpoint.getAddress());
+            } else {
+                // A blocking SocketChannel.connect has no timeout; its socket adaptor does
+                channel.socket().connect(endpoint.getAddress(), connectTimeoutMillis);
+            }
+            return channel;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Cette méthode prend un tampon dans la réserve, ou en alloue un si la réserve est vide.
+     */
+    private ByteBuffer acquire() {
+        ByteBuffer buffer = pool.poll();
+        if (buffer == null)
+            return ByteBuffer.allocateDirect(bufferSize);
+        pooled.decrementAndGet();
+        return buffer;
+    }
+
+    /**
+     * Cette méthode remet un tampon dans la réserve, à moins qu'elle ne soit pleine.
+     */
+    private void release(ByteBuffer buffer) {
+        if (pooled.incrementAndGet() > MAX_POOLED_BUFFERS) {
+            pooled.decrementAndGet();
+            return;
+        }
+        buffer.clear();
+        pool.offer(buffer);
+    }
+
+    /**
+     * Une connexion par un SocketChannel bloquant.
+     */
+    private class ChannelConnection implements Connection {
+
+        private final SocketChannel channel;
+        private final ByteBuffer writeBuffer;
+        private final ByteBuffer readBuffer;
+        private final OutputStream output = new ChannelOutputStream();
+        private final InputStream input = new ChannelInputStream();
+        private long bytesSent;
+        private long bytesReceived;
+        private long writeCalls;
+        private long readCalls;
+        private boolean closed;
+
+        ChannelConnection(SocketChannel channel, ByteBuffer writeBuffer, ByteBuffer readBuffer) {
+            this.channel = channel;
+            this.writeBuffer = writeBuffer;
+            // The read buffer is kept in read mode: its remaining bytes are the ones not consumed yet
+            this.readBuffer = readBuffer.flip();
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return output;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return input;
+        }
+
+        @Override
+        public void awaitResponse() throws IOException {
+            if (!fill())
+                throw new IOException("La connexion a été fermée par le serveur.");
+        }
+
+        /**
+         * Cette méthode écrit le contenu du tampon d'écriture sur le canal.
+         */
+        private void drain() throws IOException {
+            writeBuffer.flip();
+            while (writeBuffer.hasRemaining()) {
+                bytesSent += channel.write(writeBuffer);
+                writeCalls++;
+            }
+            writeBuffer.clear();
+        }
+
+        /**
+         * Cette méthode lit le canal si tous les octets du tampon de lecture ont été consommés.
+         *
+         * @return false si la connexion est fermée et que le tampon est vide.
+         */
+        private boolean fill() throws IOException {
+            if (readBuffer.hasRemaining())
+                return true;
+            readBuffer.clear();
+            int n = channel.read(readBuffer);
+            readCalls++;
+            readBuffer.flip();
+            if (n < 0)
+                return false;
+            bytesReceived += n;
+            return true;
+        }
+
+        @Override
+        public long getBytesSent() {
+            return bytesSent;
+        }
+
+        @Override
+        public long getBytesReceived() {
+            return bytesReceived;
+        }
+
+        @Override
+        public long getWriteCalls() {
+            return writeCalls;
+        }
+
+        @Override
+        public long getReadCalls() {
+            return readCalls;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed)
+                return;
+            closed = true;
+            try {
+                channel.close();
+            } finally {
+                release(writeBuffer);
+                release(readBuffer);
+            }
+        }
+
+        /**
+         * Le flux de sortie de la connexion, qui accumule les octets dans le tampon d'écriture.
+         */
+        private class ChannelOutputStream extends OutputStream {
+
+            @Override
+            public void write(int b) throws IOException {
+                if (!writeBuffer.hasRemaining())
+                    drain();
+                writeBuffer.put((byte) b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                // Large arrays are copied through the direct buffer in chunks: a wrapped array would be copied into
+                // a temporary direct buffer by the JDK on every channel write anyway
+                while (len > 0) {
+                    if (!writeBuffer.hasRemaining())
+                        drain();
+                    int n = Math.min(len, writeBuffer.remaining());
+                    writeBuffer.put(b, off, n);
+                    off += n;
+                    len -= n;
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (writeBuffer.position() > 0)
+                    drain();
+            }
+        }
+
+        /**
+         * Le flux d'entrée de la connexion, qui consomme les octets du tampon de lecture.
+         */
+        private class ChannelInputStream extends InputStream {
+
+            @Override
+            public int read() throws IOException {
+                return fill() ? readBuffer.get() & 0xff : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (len == 0)
+                    return 0;
+                if (!fill())
+                    return -1;
+                int n = Math.min(len, readBuffer.remaining());
+                readBuffer.get(b, off, n);
+                return n;
+            }
+
+            @Override
+            public int available() {
+                return readBuffer.remaining();
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Cette classe enregistre la succession des phases d'une requête du client sous forme d'événements
+ * ClientPhaseEvent : le début d'une phase termine la précédente.
+ * <p>
+ * Le premier usage de la classe ClientPhaseEvent coûte plusieurs centaines de millisecondes, même si aucun
+ * enregistrement n'est actif : les phases ne sont mesurées que si le Flight Recorder a été initialisé.
+ */
+public class RequestTrace {
+
+    /**
+     * Le dernier identifiant de requête attribué.
+     */
+    private final static AtomicLong LAST_REQUEST_ID = new AtomicLong();
+
+    /**
+     * La phase de connexion au serveur.
+     */
+    public final static String CONNECT = "connect";
+
+    /**
+     * La phase d'écriture de la commande (et du formulaire d'inscription).
+     */
+    public final static String WRITE = "write";
+
+    /**
+     * La phase d'attente du premier octet de la réponse du serveur.
+     */
+    public final static String SERVER_WAIT = "server-wait";
+
+    /**
+     * La phase de désérialisation de la réponse du serveur.
+     */
+    public final static String READ_OBJECT = "readObject";
+
+    /**
+     * La phase de déconnexion du serveur.
+     */
+    public final static String DISCONNECT = "disconnect";
+
+    private final long requestId;
+    private final String command;
+    private final String session;
+    private String endpoint;
+    private ClientPhaseEvent current;
+
+    /**
+     * Le constructeur de la classe RequestTrace.
+     *
+     * @param command correspond à la commande de la requête ("CHARGER" ou "INSCRIRE").
+     * @param session correspond à la session visée par la requête.
+     */
+    public RequestTrace(String command, String session) {
+        this.requestId = LAST_REQUEST_ID.incrementAndGet();
+        this.command = command;
+        this.session = session;
+    }
+
+    /**
+     * Cette méthode termine la phase en cours (s'il y a lieu) et commence la mesure d'une nouvelle phase.
+     *
+     * @param phase correspond au nom de la nouvelle phase.
+     */
+    public void phase(String phase) {
+        commit(false);
+        if (!FlightRecorder.isInitialized())
+            return;
+
+        ClientPhaseEvent event = new ClientPhaseEvent();
+        if (event.isEnabled()) {
+            event.requestId = requestId;
+            event.command = command;
+            event.session = session;
+            event.phase = phase;
+            event.begin();
+            current = event;
+        }
+    }
+
+    /**
+     * Cette méthode précise le point d'accès du serveur auquel la requête est transmise.
+     *
+     * @param endpoint correspond au point d'accès.
+     */
+    public void setEndpoint(Object endpoint) {
+        this.endpoint = String.valueOf(endpoint);
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public String getSession() {
+        return session;
+    }
+
+    /**
+     * Cette méthode termine la dernière phase d'une requête réussie.
+     */
+    public void end() {
+        commit(false);
+    }
+
+    /**
+     * Cette méthode termine la phase en cours d'une requête qui a échoué.
+     */
+    public void fail() {
+        commit(true);
+    }
+
+    private void commit(boolean failed) {
+        if (current == null)
+            return;
+        current.endpoint = endpoint;
+        current.failed = failed;
+        current.commit();
+        current = null;
+    }
+}
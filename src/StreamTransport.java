@@ -0,0 +1,177 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Cette classe est le transport par défaut du client : un Socket bloquant dont les flux sont mis en tampon.
+ * <p>
+ * Sans tampon, chaque bloc écrit par l'ObjectOutputStream devient un envoi distinct sur le réseau, et chaque lecture
+ * de l'ObjectInputStream un appel système. Avec un tampon, une requête complète part en une seule écriture au
+ * flush(), et les réponses sont lues par blocs de la taille du tampon.
+ * <p>
+ * Un Socket ne peut pas joindre un socket de domaine Unix : ces points d'accès sont joints par un SocketChannel
+ * bloquant, dont les flux sont mis en tampon de la même façon.
+ */
+public class StreamTransport implements Transport {
+
+    private final TransportOptions options;
+
+    /**
+     * Le constructeur de la classe StreamTransport.
+     *
+     * @param options correspond aux options du socket et à la taille des tampons (0 pour ne pas en utiliser).
+     */
+    public StreamTransport(TransportOptions options) {
+        this.options = options;
+    }
+
+    @Override
+    public Connection open(Endpoint endpoint, int connectTimeoutMillis) throws IOException {
+        if (endpoint.isUnixDomain()) {
+            SocketChannel channel = NioTransport.connect(endpoint, options, connectTimeoutMillis);
+            return new StreamConnection(channel, Channels.newOutputStream(channel), Channels.newInputStream(channel),
+                    options.getIoBufferSize());
+        }
+
+        Socket socket = new Socket();
+        try {
+            options.apply(socket);
+            socket.connect(endpoint.getAddress(), connectTimeoutMillis);
+            return new StreamConnection(socket, socket.getOutputStream(), socket.getInputStream(),
+                    options.getIoBufferSize());
+        } catch (IOException | RuntimeException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Une connexion par les flux bloquants d'un Socket ou d'un SocketChannel.
+     */
+    private static class StreamConnection implements Connection {
+
+        private final Closeable socket;
+        private final CountingOutputStream socketOutput;
+        private final CountingInputStream socketInput;
+        private final OutputStream output;
+        private final BufferedInputStream input;
+
+        StreamConnection(Closeable socket, OutputStream out, InputStream in, int bufferSize) {
+            this.socket = socket;
+            this.socketOutput = new CountingOutputStream(out);
+            this.socketInput = new CountingInputStream(in);
+            this.output = bufferSize > 0 ? new BufferedOutputStream(socketOutput, bufferSize) : socketOutput;
+            // The input is always wrapped so that awaitResponse can peek without consuming; without an I/O buffer
+            // the peeked byte is the only one buffered
+            this.input = new BufferedInputStream(socketInput, Math.max(bufferSize, 1));
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return output;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return input;
+        }
+
+        @Override
+        public void awaitResponse() throws IOException {
+            input.mark(1);
+            int first = input.read();
+            input.reset();
+            if (first < 0)
+                throw new IOException("La connexion a été fermée par le serveur.");
+        }
+
+        @Override
+        public long getBytesSent() {
+            return socketOutput.bytes;
+        }
+
+        @Override
+        public long getBytesReceived() {
+            return socketInput.bytes;
+        }
+
+        @Override
+        public long getWriteCalls() {
+            return socketOutput.calls;
+        }
+
+        @Override
+        public long getReadCalls() {
+            return socketInput.calls;
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    /**
+     * Un flux de sortie qui compte les octets et les écritures transmis au socket.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        long bytes;
+        long calls;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            bytes++;
+            calls++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            bytes += len;
+            calls++;
+        }
+    }
+
+    /**
+     * Un flux d'entrée qui compte les octets et les lectures demandés au socket.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        long bytes;
+        long calls;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            calls++;
+            if (b >= 0)
+                bytes++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            calls++;
+            if (n > 0)
+                bytes += n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Cette classe enregistre dans un fichier binaire compact chaque échange du client avec le serveur : le moment de la
+ * requête, la commande, la session, la taille de la requête et de la réponse, la latence et le résultat.
+ * <p>
+ * L'enregistrement est facultatif : il est activé par la propriété système "client.record", qui donne le chemin du
+ * fichier. Le fichier peut ensuite être rejoué contre un serveur local afin de reproduire la forme de la charge
+ * réelle (par exemple, une journée d'inscriptions).
+ * <p>
+ * Format du fichier (gros-boutiste, DataOutput) : MAGIC (int), VERSION (short), début de l'enregistrement en
+ * millisecondes depuis l'époque (long), puis, pour chaque échange : décalage depuis le début en nanosecondes (long),
+ * commande (byte), session (UTF), octets envoyés (int), octets reçus (int), latence en nanosecondes (long),
+ * réussite (boolean).
+ */
+public class TrafficRecorder implements AutoCloseable {
+
+    /**
+     * L'identifiant du format de fichier ("CFXR").
+     */
+    public final static int MAGIC = 0x43465852;
+
+    /**
+     * La version courante du format de fichier.
+     */
+    public final static short VERSION = 1;
+
+    /**
+     * Le code de la commande "CHARGER" dans le fichier.
+     */
+    public final static byte COMMAND_CHARGER = 1;
+
+    /**
+     * Le code de la commande "INSCRIRE" dans le fichier.
+     */
+    public final static byte COMMAND_INSCRIRE = 2;
+
+    /**
+     * Le flux d'écriture du fichier.
+     */
+    private final DataOutputStream out;
+
+    /**
+     * Le début de l'enregistrement, selon System.nanoTime.
+     */
+    private final long startNanos;
+
+    /**
+     * Le constructeur de la classe TrafficRecorder, qui crée (ou remplace) le fichier d'enregistrement.
+     *
+     * @param file correspond au fichier d'enregistrement.
+     * @throws IOException si le fichier ne peut pas être créé.
+     */
+    public TrafficRecorder(Path file) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+        this.startNanos = System.nanoTime();
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeLong(System.currentTimeMillis());
+        out.flush();
+    }
+
+    /**
+     * Cette méthode crée l'enregistreur configuré par la propriété système "client.record", s'il y a lieu. Le
+     * fichier est fermé à l'arrêt de l'application.
+     *
+     * @return l'enregistreur, ou null si l'enregistrement n'est pas activé ou que le fichier ne peut être créé.
+     */
+    public static TrafficRecorder fromConfiguration() {
+        String file = System.getProperty("client.record");
+        if (file == null || file.isBlank())
+            return null;
+
+        try {
+            TrafficRecorder recorder = new TrafficRecorder(Paths.get(file));
+            Runtime.getRuntime().addShutdownHook(new Thread(recorder::close, "traffic-recorder-close"));
+            return recorder;
+        } catch (IOException e) {
+            System.out.println("L'enregistrement des échanges n'a pas pu être démarré: " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Cette méthode enregistre un échange avec le serveur. Une erreur d'écriture désactive l'enregistrement sans
+     * interrompre la requête.
+     *
+     * @param command correspond à la commande ("CHARGER" ou "INSCRIRE").
+     * @param session correspond à la session visée par la requête.
+     * @param requestStartNanos correspond au début de la requête, selon System.nanoTime.
+     * @param latencyNanos correspond à la durée de l'échange, en nanosecondes.
+     * @param bytesSent correspond au nombre d'octets envoyés au serveur.
+     * @param bytesReceived correspond au nombre d'octets reçus du serveur.
+     * @param success correspond à true si l'échange a réussi.
+     */
+    public synchronized void record(String command, String session, long requestStartNanos, long latencyNanos,
+                                    long bytesSent, long bytesReceived, boolean success) {
+        try {
+            out.writeLong(requestStartNanos - startNanos);
+            out.writeByte("INSCRIRE".equals(command) ? COMMAND_INSCRIRE : COMMAND_CHARGER);
+            out.writeUTF(session == null ? "" : session);
+            out.writeInt((int) Math.min(bytesSent, Integer.MAX_VALUE));
+            out.writeInt((int) Math.min(bytesReceived, Integer.MAX_VALUE));
+            out.writeLong(latencyNanos);
+            out.writeBoolean(success);
+            out.flush();
+        } catch (IOException e) {
+            System.out.println("L'échange n'a pas pu être enregistré: " + e);
+        }
+    }
+
+    /**
+     * Cette méthode ferme le fichier d'enregistrement.
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            // Nothing else can be done at shutdown
+        }
+    }
+
+    /**
+     * Un échange lu dans un fichier d'enregistrement.
+     */
+    public static class Exchange {
+        public long offsetNanos;
+        public byte command;
+        public String session;
+        public int bytesSent;
+        public int bytesReceived;
+        public long latencyNanos;
+        public boolean success;
+    }
+
+    /**
+     * Cette classe lit un fichier d'enregistrement, un échange à la fois.
+     */
+    public static class Reader implements AutoCloseable {
+
+        private final DataInputStream in;
+        private final long startEpochMillis;
+
+        /**
+         * Le constructeur de la classe Reader, qui lit et valide l'en-tête du fichier.
+         *
+         * @param in correspond au contenu du fichier d'enregistrement.
+         * @throws IOException si le fichier n'est pas un enregistrement valide.
+         */
+        public Reader(InputStream in) throws IOException {
+            this.in = new DataInputStream(in);
+            if (this.in.readInt() != MAGIC)
+                throw new IOException("Ce fichier n'est pas un enregistrement d'échanges.");
+            short version = this.in.readShort();
+            if (version != VERSION)
+                throw new IOException("Version d'enregistrement non prise en charge: " + version);
+            this.startEpochMillis = this.in.readLong();
+        }
+
+        public long getStartEpochMillis() {
+            return startEpochMillis;
+        }
+
+        /**
+         * Cette méthode lit le prochain échange.
+         *
+         * @return l'échange, ou null à la fin du fichier.
+         * @throws IOException si le fichier est tronqué ou illisible.
+         */
+        public Exchange next() throws IOException {
+            Exchange exchange = new Exchange();
+            try {
+                exchange.offsetNanos = in.readLong();
+            } catch (EOFException e) {
+                return null;
+            }
+            exchange.command = in.readByte();
+            exchange.session = in.readUTF();
+            exchange.bytesSent = in.readInt();
+            exchange.bytesReceived = in.readInt();
+            exchange.latencyNanos = in.readLong();
+            exchange.success = in.readBoolean();
+            return exchange;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+import java.io.IOException;
+
+/**
+ * Cette interface représente la couche de transport utilisée par le client pour ouvrir une connexion avec une
+ * instance du programme serveur.
+ * <p>
+ * Le transport est choisi par la propriété système "client.transport" : "stream" (par défaut) pour des flux
+ * bloquants sur un Socket, ou "nio" pour un SocketChannel avec des tampons directs réutilisés. Les options du
+ * socket sont décrites par la classe TransportOptions.
+ */
+public interface Transport {
+
+    /**
+     * Cette méthode ouvre une connexion avec une instance du serveur.
+     *
+     * @param endpoint correspond au point d'accès du serveur.
+     * @param connectTimeoutMillis correspond au délai maximal d'établissement de la connexion, en millisecondes.
+     * @return la connexion ouverte.
+     * @throws IOException si la connexion ne peut pas être établie.
+     */
+    Connection open(Endpoint endpoint, int connectTimeoutMillis) throws IOException;
+
+    /**
+     * Cette méthode crée le transport configuré par les propriétés système.
+     *
+     * @return le transport configuré.
+     */
+    static Transport fromConfiguration() {
+        TransportOptions options = TransportOptions.fromConfiguration();
+        String transport = System.getProperty("client.transport", "stream");
+        switch (transport) {
+            case "stream":
+                return new StreamTransport(options);
+            case "nio":
+                return new NioTransport(options);
+            default:
+                throw new IllegalArgumentException("Transport inconnu (stream ou nio attendu): " + transport);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+import java.io.IOException;
+import java.net.Socket;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Cette classe regroupe les options de socket et de tampon appliquées par un Transport à chaque connexion.
+ * <p>
+ * Propriétés système : "client.tcpNoDelay" (true par défaut, désactive l'algorithme de Nagle), "client.keepAlive"
+ * (false par défaut), "client.sendBufferSize" et "client.receiveBufferSize" (taille des tampons du système, 0 pour
+ * la valeur par défaut du système) et "client.ioBufferSize" (taille des tampons de l'application, 8192 par défaut).
+ */
+public class TransportOptions {
+
+    private final boolean tcpNoDelay;
+    private final boolean keepAlive;
+    private final int sendBufferSize;
+    private final int receiveBufferSize;
+    private final int ioBufferSize;
+
+    /**
+     * Le constructeur de la classe TransportOptions.
+     *
+     * @param tcpNoDelay correspond à true pour désactiver l'algorithme de Nagle (TCP_NODELAY).
+     * @param keepAlive correspond à true pour activer SO_KEEPALIVE.
+     * @param sendBufferSize correspond à SO_SNDBUF, ou 0 pour la valeur par défaut du système.
+     * @param receiveBufferSize correspond à SO_RCVBUF, ou 0 pour la valeur par défaut du système.
+     * @param ioBufferSize correspond à la taille des tampons d'entrée et de sortie de l'application, ou 0 pour
+     *                     écrire et lire directement sur le socket.
+     */
+    public TransportOptions(boolean tcpNoDelay, boolean keepAlive, int sendBufferSize, int receiveBufferSize,
+                            int ioBufferSize) {
+        this.tcpNoDelay = tcpNoDelay;
+        this.keepAlive = keepAlive;
+        this.sendBufferSize = sendBufferSize;
+        this.receiveBufferSize = receiveBufferSize;
+        this.ioBufferSize = ioBufferSize;
+    }
+
+    /**
+     * Cette méthode crée les options configurées par les propriétés système.
+     *
+     * @return les options configurées.
+     */
+    public static TransportOptions fromConfiguration() {
+        return new TransportOptions(
+                Boolean.parseBoolean(System.getProperty("client.tcpNoDelay", "true")),
+                Boolean.getBoolean("client.keepAlive"),
+                Integer.getInteger("client.sendBufferSize", 0),
+                Integer.getInteger("client.receiveBufferSize", 0),
+                Integer.getInteger("client.ioBufferSize", 8192));
+    }
+
+    /**
+     * Cette méthode crée les options du client d'origine : aucune option de socket et aucun tampon.
+     *
+     * @return les options d'origine, utiles comme référence dans les mesures de performance.
+     */
+    public static TransportOptions unbuffered() {
+        return new TransportOptions(false, false, 0, 0, 0);
+    }
+
+    public int getIoBufferSize() {
+        return ioBufferSize;
+    }
+
+    /**
+     * Cette méthode applique les options à un socket, avant sa connexion.
+     *
+     * @param socket correspond au socket.
+     * @throws IOException si une option ne peut pas être appliquée.
+     */
+    void apply(Socket socket) throws IOException {
+        socket.setTcpNoDelay(tcpNoDelay);
+        socket.setKeepAlive(keepAlive);
+        if (sendBufferSize > 0)
+            socket.setSendBufferSize(sendBufferSize);
+        if (receiveBufferSize > 0)
+            socket.setReceiveBufferSize(receiveBufferSize);
+    }
+
+    /**
+     * Cette méthode applique les options à un canal de socket, avant sa connexion. Les options propres à TCP sont
+     * ignorées pour un socket de domaine Unix.
+     *
+     * @param channel correspond au canal.
+     * @throws IOException si une option ne peut pas être appliquée.
+     */
+    void apply(SocketChannel channel) throws IOException {
+        if (channel.supportedOptions().contains(StandardSocketOptions.TCP_NODELAY)) {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, tcpNoDelay);
+            channel.setOption(StandardSocketOptions.SO_KEEPALIVE, keepAlive);
+        }
+        if (sendBufferSize > 0)
+            channel.setOption(StandardSocketOptions.SO_SNDBUF, sendBufferSize);
+        if (receiveBufferSize > 0)
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferSize);
+    }
+}
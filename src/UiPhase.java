@@ -0,0 +1,63 @@
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Cette classe mesure une étape du traitement d'une action de l'utilisateur par le contrôleur et l'enregistre comme
+ * événement UiPhaseEvent.
+ * <p>
+ * Le premier usage d'une classe d'événement JFR coûte plusieurs centaines de millisecondes, même si aucun
+ * enregistrement n'est actif. La classe UiPhaseEvent n'est donc chargée que si le Flight Recorder a été initialisé
+ * (par l'option -XX:StartFlightRecording ou par jcmd) ; sinon, les étapes ne sont pas mesurées.
+ */
+public class UiPhase {
+
+    /**
+     * L'étape retournée lorsqu'aucun enregistrement n'existe, qui n'enregistre rien.
+     */
+    private final static UiPhase NOT_RECORDED = new UiPhase(null);
+
+    /**
+     * L'événement de l'étape, ou null si aucun enregistrement n'existe.
+     */
+    private final UiPhaseEvent event;
+
+    /**
+     * true si l'événement a déjà été enregistré.
+     */
+    private boolean finished;
+
+    private UiPhase(UiPhaseEvent event) {
+        this.event = event;
+    }
+
+    /**
+     * Cette méthode commence la mesure d'une étape.
+     *
+     * @param phase correspond au nom de l'étape.
+     * @return l'étape, qui doit être terminée par finish() ou fail().
+     */
+    public static UiPhase start(String phase) {
+        if (!FlightRecorder.isInitialized())
+            return NOT_RECORDED;
+        return new UiPhase(UiPhaseEvent.start(phase));
+    }
+
+    /**
+     * Cette méthode termine la mesure de l'étape et enregistre son événement, s'il ne l'a pas déjà été.
+     */
+    public void finish() {
+        if (event == null || finished)
+            return;
+        finished = true;
+        event.commit();
+    }
+
+    /**
+     * Cette méthode termine la mesure d'une étape qui a échoué et enregistre son événement, s'il ne l'a pas déjà été.
+     */
+    public void fail() {
+        if (event == null || finished)
+            return;
+        event.failed = true;
+        finish();
+    }
+}
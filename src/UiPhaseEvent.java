@@ -0,0 +1,45 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Cet événement Java Flight Recorder (JFR) mesure la durée d'une étape du traitement d'une action de l'utilisateur
+ * par le contrôleur : l'action elle-même (clic sur "charger" ou "envoyer"), la validation du formulaire, la mise à
+ * jour de la table ou l'affichage d'une boîte de dialogue.
+ * <p>
+ * Les requêtes au serveur effectuées pendant une action sont enregistrées par des événements ClientPhaseEvent sur
+ * le même fil d'exécution, pendant la durée de l'événement de l'action. Le contrôleur ne crée ces événements que par
+ * la classe UiPhase.
+ */
+@Name(UiPhaseEvent.NAME)
+@Label("Étape d'une action de l'utilisateur")
+@Category({"Client FX", "Interface"})
+@Description("Durée d'une étape du traitement d'une action de l'utilisateur par le contrôleur")
+public class UiPhaseEvent extends jdk.jfr.Event {
+
+    /**
+     * Le nom de l'événement dans un enregistrement JFR.
+     */
+    public final static String NAME = "clientfx.UiPhase";
+
+    @Label("Étape")
+    String phase;
+
+    @Label("Échec")
+    boolean failed;
+
+    /**
+     * Cette méthode crée l'événement d'une étape et commence la mesure de sa durée. Elle n'est appelée par UiPhase
+     * que si le Flight Recorder a été initialisé.
+     *
+     * @param phase correspond au nom de l'étape.
+     * @return l'événement, qui doit être enregistré par commit().
+     */
+    static UiPhaseEvent start(String phase) {
+        UiPhaseEvent event = new UiPhaseEvent();
+        event.phase = phase;
+        event.begin();
+        return event;
+    }
+}
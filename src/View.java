@@ -46,6 +46,8 @@ public class View extends Application {
         window = stage;
         window.setTitle("Inscription UdeM");
 
+        FxWatchdog.install();
+
         GridPane gridPane = new GridPane();
         Scene scene = new Scene(gridPane, 800,400);
 
@@ -61,11 +63,13 @@ public class View extends Application {
 
         // code column
         TableColumn<Course, String> codeColumn = new TableColumn<>("Code");
+        codeColumn.setId("code");// used by the controller's sort policy
         codeColumn.setMinWidth(75);
         codeColumn.setCellValueFactory(new PropertyValueFactory<>("code"));// class property
 
         // name column
         TableColumn<Course, String> nameColumn = new TableColumn<>("Cours");
+        nameColumn.setId("name");// used by the controller's sort policy
         nameColumn.setMinWidth(300);
         nameColumn.setCellValueFactory(new PropertyValueFactory<>("name"));// class property
 
@@ -142,12 +146,18 @@ public class View extends Application {
 
         // EVENT HANDLERS
 
-        chargerButton.setOnAction((action) -> controller.getSelection(choiceBox));
-        envoyerButton.setOnAction((action) -> controller.getInputData(prenomInput, nomInput, emailInput, matriculeInput));
+        // Handlers are tracked by the watchdog, which blames them for the JavaFX thread stalls they cause
+        chargerButton.setOnAction(FxWatchdog.track("action:charger",
+                (action) -> controller.getSelection(choiceBox)));
+        envoyerButton.setOnAction(FxWatchdog.track("action:envoyer",
+                (action) -> controller.getInputData(prenomInput, nomInput, emailInput, matriculeInput)));
 
         window.setScene(scene);
         window.show();
 
+        // Fill the table from the local snapshot, then revalidate it against the server
+        controller.loadSnapshot(choiceBox);
+
     }
 
     public static void main(String[] args) {